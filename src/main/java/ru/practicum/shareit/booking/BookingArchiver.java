@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves bookings that ended before the retention window into {@code bookings_archive}, so listings and
+ * overlap checks work on a table of recent bookings. Every chunk is locked, copied and deleted in its own
+ * transaction. WAITING bookings are left to {@link BookingExpiry}.
+ */
+@Slf4j
+@Component
+public class BookingArchiver {
+
+    private final BookingRepository bookingRepository;
+
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration retention;
+
+    private final int chunkSize;
+
+    private volatile boolean archiveUsed;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           BookingIntervalIndex bookingIntervalIndex,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking.archive.retention:P365D}") Duration retention,
+                           @Value("${shareit.booking.archive.chunk-size:1000}") int chunkSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Every archived booking ended, and so started, before this moment.
+     */
+    public LocalDateTime archivedBefore() {
+        return LocalDateTime.now().minus(retention);
+    }
+
+    /**
+     * Whether the archive has any rows. Once set it stays set, as the archive is never emptied.
+     */
+    public boolean isArchiveUsed() {
+        return archiveUsed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkArchive() {
+        archiveUsed = !bookingRepository.findArchivedIds(PageRequest.of(0, 1)).isEmpty();
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.archive.delay:PT1H}",
+            fixedDelayString = "${shareit.booking.archive.delay:PT1H}")
+    public synchronized int archive() {
+        LocalDateTime endBefore = archivedBefore();
+        int total = 0;
+        int selected;
+        do {
+            List<BookingInterval> finished = new ArrayList<>();
+            total += transactionTemplate.execute(status -> archiveChunk(endBefore, finished));
+            if (!finished.isEmpty()) {
+                archiveUsed = true;
+            }
+            finished.forEach(bookingIntervalIndex::remove);
+            selected = finished.size();
+        } while (selected == chunkSize);
+        if (!archiveUsed) {
+            // another instance may have filled the archive
+            checkArchive();
+        }
+        if (total > 0) {
+            log.info("В архив перенесено {} завершенных бронирований", total);
+        }
+        return total;
+    }
+
+    private int archiveChunk(LocalDateTime endBefore, List<BookingInterval> finished) {
+        finished.addAll(bookingRepository.findFinishedIntervals(endBefore, BookingStatus.WAITING,
+                PageRequest.of(0, chunkSize)));
+        if (finished.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = finished.stream().map(BookingInterval::getId).collect(Collectors.toList());
+        int copied = bookingRepository.copyToArchive(ids);
+        bookingRepository.deleteAllByIdInBatch(ids);
+        return copied;
+    }
+}
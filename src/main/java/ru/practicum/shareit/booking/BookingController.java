@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoWithId;
 
@@ -26,6 +28,7 @@ import java.util.List;
 @Validated
 public class BookingController {
     private static final String BOOKING_DATE_FIELD_NAME = "start";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final BookingService bookingService;
 
@@ -39,6 +42,12 @@ public class BookingController {
         return bookingService.createBooking(bookingCreateDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(@RequestBody List<BookingDtoWithId> bookingCreateDtos,
+                                                      @RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.createBookings(bookingCreateDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto update(@PathVariable long bookingId, @RequestParam Boolean approved,
                              @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -52,24 +61,36 @@ public class BookingController {
     }
 
     @GetMapping("")
-    public List<BookingDto> getBookingByState(@RequestHeader("X-Sharer-User-Id") long userId,
-                                              @RequestParam(defaultValue = "ALL") String state,
-                                              @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-                                              @RequestParam(defaultValue = "10") @Positive Integer size) {
+    public ResponseEntity<List<BookingDto>> getBookingByState
+            (@RequestHeader("X-Sharer-User-Id") long userId,
+             @RequestParam(defaultValue = "ALL") String state,
+             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+             @RequestParam(defaultValue = "10") @Positive Integer size,
+             @RequestParam(required = false) String cursor) {
         Pageable pageable = PageRequest.of(from / size, size,
                 Sort.by(Sort.Direction.DESC, BOOKING_DATE_FIELD_NAME));
 
-        return bookingService.getBookingByState(userId, state, pageable);
+        return toResponse(bookingService.getBookingByState(userId, state, pageable, cursor));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getItemsByStateAndOwner
+    public ResponseEntity<List<BookingDto>> getItemsByStateAndOwner
             (@RequestHeader("X-Sharer-User-Id") long userId,
              @RequestParam(defaultValue = "ALL") String state,
              @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-             @RequestParam(defaultValue = "10") @Positive Integer size) {
+             @RequestParam(defaultValue = "10") @Positive Integer size,
+             @RequestParam(required = false) String cursor) {
         Pageable pageable = PageRequest.of(from / size, size,
                 Sort.by(Sort.Direction.DESC, BOOKING_DATE_FIELD_NAME));
-        return bookingService.getBookingByStateAndOwner(userId, state, pageable);
+        return toResponse(bookingService.getBookingByStateAndOwner(userId, state, pageable, cursor));
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingPage page) {
+        if (page.getNextCursor() == null) {
+            return ResponseEntity.ok(page.getBookings());
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.getNextCursor())
+                .body(page.getBookings());
     }
 }
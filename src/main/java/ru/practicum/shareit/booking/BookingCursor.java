@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.exception.BadEntityException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last booking of a page. Listings are ordered by {@code (start, id)} descending,
+ * so the next page seeks past this pair instead of skipping {@code from} rows.
+ */
+@Getter
+@AllArgsConstructor
+public final class BookingCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime start;
+
+    private final Long id;
+
+    public static BookingCursor of(BookingView booking) {
+        return new BookingCursor(booking.getStart(), booking.getId());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((start + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadEntityException("Некорректный курсор бронирований");
+            }
+            return new BookingCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadEntityException("Некорректный курсор бронирований");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves WAITING bookings to EXPIRED once their start has passed or the owner has not answered within the TTL,
+ * so they stop blocking the slot. Every chunk is selected and updated in its own transaction; the version is
+ * bumped, so an approval racing with the job fails with a conflict instead of reviving the booking.
+ */
+@Slf4j
+@Component
+public class BookingExpiry {
+
+    private final BookingRepository bookingRepository;
+
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration ttl;
+
+    private final int chunkSize;
+
+    private final Counter expiredCounter;
+
+    private final Timer chunkTimer;
+
+    public BookingExpiry(BookingRepository bookingRepository,
+                         BookingIntervalIndex bookingIntervalIndex,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${shareit.booking.expiry.ttl:P7D}") Duration ttl,
+                         @Value("${shareit.booking.expiry.chunk-size:500}") int chunkSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.chunkSize = chunkSize;
+        this.expiredCounter = Counter.builder("shareit.bookings.expired")
+                .description("WAITING bookings moved to EXPIRED")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("shareit.bookings.expiry.chunk")
+                .description("Time to expire one chunk of WAITING bookings")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.expiry.delay:PT5M}",
+            fixedDelayString = "${shareit.booking.expiry.delay:PT5M}")
+    public synchronized int expire() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int selected;
+        do {
+            List<BookingInterval> stale = new ArrayList<>();
+            int updated = chunkTimer.record(() -> transactionTemplate.execute(status -> expireChunk(now, stale)));
+            expiredCounter.increment(updated);
+            syncIndex(stale, updated);
+            total += updated;
+            selected = stale.size();
+        } while (selected == chunkSize);
+        if (total > 0) {
+            log.info("Истек срок ожидания подтверждения {} бронирований", total);
+        }
+        return total;
+    }
+
+    private int expireChunk(LocalDateTime now, List<BookingInterval> stale) {
+        stale.addAll(bookingRepository.findStaleIntervals(BookingStatus.WAITING, now, now.minus(ttl),
+                PageRequest.of(0, chunkSize)));
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = stale.stream().map(BookingInterval::getId).collect(Collectors.toList());
+        return bookingRepository.updateStatus(ids, BookingStatus.WAITING, BookingStatus.EXPIRED);
+    }
+
+    private void syncIndex(List<BookingInterval> stale, int updated) {
+        if (updated == stale.size()) {
+            stale.forEach(interval -> bookingIntervalIndex.apply(expired(interval)));
+        } else {
+            // some bookings were answered between the select and the update, take their state from the database
+            Set<Long> itemIds = stale.stream().map(BookingInterval::getItemId).collect(Collectors.toSet());
+            bookingIntervalIndex.refresh(itemIds);
+        }
+    }
+
+    private BookingInterval expired(BookingInterval interval) {
+        return new BookingInterval(interval.getId(), interval.getItemId(), interval.getBookerId(),
+                interval.getStart(), interval.getEnd(), BookingStatus.EXPIRED);
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoWithId;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -44,4 +46,39 @@ public class BookingMapper {
                 .booker(booker)
                 .build();
     }
+
+    public BookingDto archivedBookingToBookingDtoWithItemAndBooker(ArchivedBooking booking, ItemDto itemDto,
+                                                                   UserDto booker) {
+        return BookingDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .status(booking.getStatus())
+                .item(itemDto)
+                .booker(booker)
+                .build();
+    }
+
+    public BookingDto bookingViewToBookingDto(BookingView booking) {
+        UserDto booker = UserDto.builder()
+                .id(booking.getBookerId())
+                .name(booking.getBookerName())
+                .email(booking.getBookerEmail())
+                .build();
+        return BookingDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .status(booking.getStatus())
+                .item(ItemDto.builder()
+                        .id(booking.getItemId())
+                        .name(booking.getItemName())
+                        .description(booking.getItemDescription())
+                        .available(booking.getItemAvailable())
+                        .owner(booker)
+                        .requestId(booking.getItemRequestId())
+                        .build())
+                .booker(booker)
+                .build();
+    }
 }
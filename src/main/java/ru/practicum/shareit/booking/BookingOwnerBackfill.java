@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the item owner into {@code bookings.owner_id} for the rows written before the column existed.
+ * Runs once when the application starts: new bookings get the owner on insert, so there is nothing to
+ * follow afterwards. Every chunk is updated in its own transaction, so a large table is never locked
+ * as a whole.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingOwnerBackfill {
+
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final BookingRepository bookingRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized int backfill() {
+        int total = 0;
+        int updated;
+        do {
+            updated = bookingRepository.copyItemOwners(CHUNK_SIZE);
+            total += updated;
+        } while (updated == CHUNK_SIZE);
+        if (total > 0) {
+            log.info("Владелец предмета скопирован в {} бронирований", total);
+        }
+        return total;
+    }
+}
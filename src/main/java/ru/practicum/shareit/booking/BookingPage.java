@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BookingPage {
+
+    private final List<BookingDto> bookings;
+
+    private final String nextCursor;
+}
@@ -1,53 +1,131 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("select b from Booking b where b.booker.id = :id and b.status = :status order by b.start DESC")
-    Page<Booking> searchByBookerAndStatus(@NonNull Long id, @NonNull BookingStatus status, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :id order by b.start DESC")
-    Page<Booking> searchByBooker(@NonNull Long id, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :bookerId and b.start < :date " +
-            "and b.end > :date order by b.start DESC")
-    Page<Booking> searchByBookerInPresentTime(Long bookerId, LocalDateTime date, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :bookerId and b.end < :date order by b.start DESC")
-    Page<Booking> searchByBookerInPastTime(Long bookerId, LocalDateTime date, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :bookerId and b.start > :date order by b.start DESC")
-    Page<Booking> searchByBookerInFutureTime(Long bookerId, LocalDateTime date, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.owner.id = :id order by b.start DESC")
-    Page<Booking> searchByItemOwner(@NonNull Long id, Pageable pageable);
-
-    @Query("select b from Booking b where  b.item.owner.id = :id and b.end < :date order by b.start DESC")
-    Page<Booking> searchByItemOwnerInPastTime(@NonNull Long id, LocalDateTime date, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.owner.id = :id and b.start > :date " +
-            "and b.end > :date  order by b.start DESC")
-    Page<Booking> searchBookingsByItemOwnerInFutureTime(@NonNull Long id, LocalDateTime date, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.owner.id = :id and b.start < :date " +
-            "and b.end > :date  order by b.start DESC")
-    Page<Booking> searchByItemOwnerInPresentTime(@NonNull Long id, LocalDateTime date, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.id = :itemId and ((b.start < :end and b.end > :end)" +
-            " or (b.start < :start and b.end > :start) or (b.start > :start and b.end < :end)) order by b.start desc")
+    String BOOKING_VIEW = "select new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
+            "from Booking b join b.item i join b.booker u ";
+    String ARCHIVED_BOOKING_VIEW = "select new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, " +
+            "b.status, i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
+            "from ArchivedBooking b join b.item i join b.booker u ";
+
+    @Query(BOOKING_VIEW + "where u.id = :id and b.status = :status " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerAndStatus(@NonNull Long id, @NonNull BookingStatus status, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :id and b.status = :status " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerAndStatusAfter(@NonNull Long id, @NonNull BookingStatus status,
+                                                    LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :id order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBooker(@NonNull Long id, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :id " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerAfter(@NonNull Long id, LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :bookerId and b.start < :date " +
+            "and b.end > :date order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerInPresentTime(Long bookerId, LocalDateTime date, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :bookerId and b.start < :date and b.end > :date " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerInPresentTimeAfter(Long bookerId, LocalDateTime date,
+                                                        LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :bookerId and b.end < :date " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerInPastTime(Long bookerId, LocalDateTime date, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :bookerId and b.end < :date " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerInPastTimeAfter(Long bookerId, LocalDateTime date,
+                                                     LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :bookerId and b.start > :date " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerInFutureTime(Long bookerId, LocalDateTime date, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where u.id = :bookerId and b.start > :date " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByBookerInFutureTimeAfter(Long bookerId, LocalDateTime date,
+                                                       LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwner(@NonNull Long id, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerAfter(@NonNull Long id, LocalDateTime afterStart, Long afterId,
+                                              Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.end < :date " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerInPastTime(@NonNull Long id, LocalDateTime date, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.end < :date " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerInPastTimeAfter(@NonNull Long id, LocalDateTime date,
+                                                        LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.start > :date " +
+            "and b.end > :date  order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchBookingsByItemOwnerInFutureTime(@NonNull Long id, LocalDateTime date, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.start > :date and b.end > :date " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchBookingsByItemOwnerInFutureTimeAfter(@NonNull Long id, LocalDateTime date,
+                                                                  LocalDateTime afterStart, Long afterId,
+                                                                  Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.start < :date " +
+            "and b.end > :date  order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerInPresentTime(@NonNull Long id, LocalDateTime date, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.start < :date and b.end > :date " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerInPresentTimeAfter(@NonNull Long id, LocalDateTime date,
+                                                           LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query("select b from Booking b where b.item.id = :itemId and b.start < :end and b.end > :start " +
+            "order by b.start desc")
     List<Booking> searchByItemIdAndStartAddEnd(@NonNull Long itemId, LocalDateTime start, LocalDateTime end);
 
+    @Query("select case when count(b) > 0 then true else false end from Booking b where b.item.id = :itemId " +
+            "and b.status in :statuses and b.start < :end and b.end > :start")
+    boolean existsOverlapping(@NonNull Long itemId, LocalDateTime start, LocalDateTime end,
+                              Collection<BookingStatus> statuses);
+
     @Query("select b from Booking b where b.item.id = :itemId and b.start < :date " +
             "and b.status = :status order by b.start DESC")
     List<Booking> searchByItemIdAndEndBeforeDate(@NonNull Long itemId, LocalDateTime date, BookingStatus status);
@@ -61,9 +139,23 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                                              @NonNull BookingStatus status,
                                                              LocalDateTime end);
 
-    @Query("select b from Booking b where b.item.owner.id = :id and b.status = :status order by b.start DESC")
-    Page<Booking> searchByItemOwnerAndStatus(@NonNull Long id,
-                                             @NonNull BookingStatus status, Pageable pageable);
+    @Query("select case when count(b) > 0 then true else false end from ArchivedBooking b " +
+            "where b.item.id = :itemId and b.booker.id = :bookerId and b.status = :status and b.end < :end")
+    boolean existsArchivedByItemIdAndBookerIdAndStatusAndEndIsBefore(@NonNull Long itemId,
+                                                                     @NonNull Long bookerId,
+                                                                     @NonNull BookingStatus status,
+                                                                     LocalDateTime end);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.status = :status " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerAndStatus(@NonNull Long id,
+                                                  @NonNull BookingStatus status, Pageable pageable);
+
+    @Query(BOOKING_VIEW + "where b.ownerId = :id and b.status = :status " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchByItemOwnerAndStatusAfter(@NonNull Long id, @NonNull BookingStatus status,
+                                                       LocalDateTime afterStart, Long afterId, Pageable pageable);
 
     Optional<Booking> searchFirstByItemIdAndStartBeforeAndStatusOrderByEndDesc(Long itemId, LocalDateTime end,
                                                                                BookingStatus status);
@@ -71,11 +163,84 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     Optional<Booking> searchFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(Long itemId, LocalDateTime start,
                                                                                BookingStatus status);
 
-    List<Booking> searchAllByItemIdInAndStartBeforeAndStatusOrderByItemIdAsc(List<Long> itemsId,
-                                                                             LocalDateTime now,
-                                                                             BookingStatus approved);
-
-    List<Booking> searchAllByItemIdInAndStartAfterAndStatusOrderByItemIdAsc(List<Long> itemsId,
-                                                                            LocalDateTime now,
-                                                                            BookingStatus approved);
+    @Transactional
+    @Modifying
+    @Query(value = "update bookings set owner_id = (select i.owner_id from items i where i.id = bookings.item_id) "
+            + "where id in (select b.id from bookings b join items i on i.id = b.item_id "
+            + "where i.owner_id is not null and (b.owner_id is null or b.owner_id <> i.owner_id) "
+            + "order by b.id limit :limit)", nativeQuery = true)
+    int copyItemOwners(int limit);
+
+    @Query("select distinct b.item.id from Booking b where b.status in :statuses " +
+            "and b.start < :end and b.end > :start")
+    List<Long> findItemIdsOverlapping(Collection<BookingStatus> statuses, LocalDateTime start, LocalDateTime end);
+
+    @Query("select distinct b.item.id from Booking b where b.item.id in :itemIds and b.status = :status " +
+            "and b.start between :from and :to")
+    List<Long> findItemIdsByStatusAndStartBetween(Collection<Long> itemIds, BookingStatus status,
+                                                  LocalDateTime from, LocalDateTime to);
+
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.id, b.item.id, b.booker.id, " +
+            "b.start, b.end, b.status) from Booking b where b.id > :id and b.status in :statuses order by b.id")
+    List<BookingInterval> findIntervalsAfter(Long id, Collection<BookingStatus> statuses, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.id, b.item.id, b.booker.id, " +
+            "b.start, b.end, b.status) from Booking b where b.item.id = :itemId and b.status in :statuses")
+    List<BookingInterval> findIntervalsByItemId(Long itemId, Collection<BookingStatus> statuses);
+
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.id, b.item.id, b.booker.id, " +
+            "b.start, b.end, b.status) from Booking b where b.item.id in :itemIds and b.status in :statuses " +
+            "and b.start < :end and b.end > :start order by b.item.id, b.start")
+    List<BookingInterval> findIntervalsByItemIdIn(Collection<Long> itemIds, Collection<BookingStatus> statuses,
+                                                  LocalDateTime start, LocalDateTime end);
+
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.id, b.item.id, b.booker.id, " +
+            "b.start, b.end, b.status) from Booking b where b.status = :status " +
+            "and (b.start < :now or b.created < :createdBefore) order by b.id")
+    List<BookingInterval> findStaleIntervals(BookingStatus status, LocalDateTime now, LocalDateTime createdBefore,
+                                             Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id in :ids and b.status = :current")
+    int updateStatus(Collection<Long> ids, BookingStatus current, BookingStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.id, b.item.id, b.booker.id, " +
+            "b.start, b.end, b.status) from Booking b where b.end < :end and b.status <> :excluded order by b.id")
+    List<BookingInterval> findFinishedIntervals(LocalDateTime end, BookingStatus excluded, Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_date, end_date, item_id, booker_id, owner_id, status, "
+            + "version, created_date) select id, start_date, end_date, item_id, booker_id, owner_id, status, "
+            + "version, created_date from bookings where id in :ids", nativeQuery = true)
+    int copyToArchive(Collection<Long> ids);
+
+    @Query("select b from ArchivedBooking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.id = :id")
+    Optional<ArchivedBooking> findArchivedById(Long id);
+
+    @Query("select b.id from ArchivedBooking b")
+    List<Long> findArchivedIds(Pageable pageable);
+
+    @Query(ARCHIVED_BOOKING_VIEW + "where u.id = :id and b.status in :statuses order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchArchivedByBooker(@NonNull Long id, Collection<BookingStatus> statuses,
+                                              Pageable pageable);
+
+    @Query(ARCHIVED_BOOKING_VIEW + "where u.id = :id and b.status in :statuses " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchArchivedByBookerAfter(@NonNull Long id, Collection<BookingStatus> statuses,
+                                                   LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    @Query(ARCHIVED_BOOKING_VIEW + "where b.ownerId = :id and b.status in :statuses " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchArchivedByItemOwner(@NonNull Long id, Collection<BookingStatus> statuses,
+                                                 Pageable pageable);
+
+    @Query(ARCHIVED_BOOKING_VIEW + "where b.ownerId = :id and b.status in :statuses " +
+            "and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId)) " +
+            "order by b.start DESC, b.id DESC")
+    Slice<BookingView> searchArchivedByItemOwnerAfter(@NonNull Long id, Collection<BookingStatus> statuses,
+                                                      LocalDateTime afterStart, Long afterId, Pageable pageable);
 }
@@ -1,65 +1,210 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.exception.BadEntityException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+/**
+ * Booker and owner listings by state. Without a cursor the page is taken by offset, with a cursor
+ * the query seeks past its {@code (start, id)} and reads only the next {@code size} rows.
+ * ALL, PAST and REJECTED listings also read {@code bookings_archive}, but only for a page that reaches
+ * past {@link BookingArchiver#archivedBefore()}; such a page is merged from the top rows of both tables.
+ */
 @Component
 @RequiredArgsConstructor
 public class BookingSearch {
 
+    private static final Comparator<BookingView> NEWEST_FIRST = Comparator.comparing(BookingView::getStart)
+            .thenComparing(BookingView::getId)
+            .reversed();
+
+    private static final List<BookingStatus> ARCHIVED_STATUSES = List.of(BookingStatus.APPROVED,
+            BookingStatus.REJECTED, BookingStatus.CANCELED, BookingStatus.EXPIRED);
+
     private final BookingRepository bookingRepository;
 
-    public List<Booking> getBookings(long ownerId, BookingSearchType type, Pageable pageable) {
+    private final BookingArchiver bookingArchiver;
+
+    public Slice<BookingView> getBookings(long ownerId, BookingSearchType type, Pageable pageable,
+                                          @Nullable BookingCursor after) {
+        if (after != null) {
+            return withArchive(type, PageRequest.of(0, pageable.getPageSize()),
+                    page -> getBookingsAfter(ownerId, type, after, page),
+                    (statuses, page) -> bookingRepository.searchArchivedByBookerAfter(ownerId, statuses,
+                            after.getStart(), after.getId(), page));
+        }
+        return withArchive(type, pageable,
+                page -> searchBookings(ownerId, type, page),
+                (statuses, page) -> bookingRepository.searchArchivedByBooker(ownerId, statuses, page));
+    }
+
+    public Slice<BookingView> getBookingsByItemsOwner(long ownerId, BookingSearchType type, Pageable pageable,
+                                                      @Nullable BookingCursor after) {
+        if (after != null) {
+            return withArchive(type, PageRequest.of(0, pageable.getPageSize()),
+                    page -> getBookingsByItemsOwnerAfter(ownerId, type, after, page),
+                    (statuses, page) -> bookingRepository.searchArchivedByItemOwnerAfter(ownerId, statuses,
+                            after.getStart(), after.getId(), page));
+        }
+        return withArchive(type, pageable,
+                page -> searchBookingsByItemsOwner(ownerId, type, page),
+                (statuses, page) -> bookingRepository.searchArchivedByItemOwner(ownerId, statuses, page));
+    }
+
+    private Slice<BookingView> withArchive(BookingSearchType type, Pageable pageable,
+                                           Function<Pageable, Slice<BookingView>> recentQuery,
+                                           BiFunction<List<BookingStatus>, Pageable, Slice<BookingView>> archiveQuery) {
+        Slice<BookingView> bookings = recentQuery.apply(pageable);
+        List<BookingStatus> statuses = archivedStatuses(type);
+        if (statuses.isEmpty() || !reachesArchive(bookings)) {
+            return bookings;
+        }
+        int limit = (int) pageable.getOffset() + pageable.getPageSize();
+        Pageable top = PageRequest.of(0, limit, pageable.getSort());
+        Slice<BookingView> recent = pageable.getOffset() == 0 ? bookings : recentQuery.apply(top);
+        Slice<BookingView> archived = archiveQuery.apply(statuses, top);
+        List<BookingView> merged = new ArrayList<>(recent.getContent());
+        merged.addAll(archived.getContent());
+        merged.sort(NEWEST_FIRST);
+        boolean hasNext = merged.size() > limit || recent.hasNext() || archived.hasNext();
+        List<BookingView> content = merged.subList(Math.min((int) pageable.getOffset(), merged.size()),
+                Math.min(limit, merged.size()));
+        return new SliceImpl<>(new ArrayList<>(content), pageable, hasNext);
+    }
+
+    private boolean reachesArchive(Slice<BookingView> bookings) {
+        if (!bookingArchiver.isArchiveUsed()) {
+            return false;
+        }
+        if (!bookings.hasNext()) {
+            return true;
+        }
+        List<BookingView> content = bookings.getContent();
+        return content.get(content.size() - 1).getStart().isBefore(bookingArchiver.archivedBefore());
+    }
+
+    private static List<BookingStatus> archivedStatuses(BookingSearchType type) {
+        switch (type) {
+            case ALL:
+            case PAST:
+                return ARCHIVED_STATUSES;
+            case REJECTED:
+                return List.of(BookingStatus.REJECTED);
+            default:
+                return List.of();
+        }
+    }
+
+    private Slice<BookingView> searchBookings(long ownerId, BookingSearchType type, Pageable pageable) {
         switch (type) {
             case ALL:
                 return bookingRepository
-                        .searchByBooker(ownerId, pageable).getContent();
+                        .searchByBooker(ownerId, pageable);
             case PAST:
                 return bookingRepository
-                        .searchByBookerInPastTime(ownerId, LocalDateTime.now(), pageable).getContent();
+                        .searchByBookerInPastTime(ownerId, LocalDateTime.now(), pageable);
             case FUTURE:
                 return bookingRepository
-                        .searchByBookerInFutureTime(ownerId, LocalDateTime.now(), pageable).getContent();
+                        .searchByBookerInFutureTime(ownerId, LocalDateTime.now(), pageable);
             case CURRENT:
                 return bookingRepository
-                        .searchByBookerInPresentTime(ownerId, LocalDateTime.now(), pageable).getContent();
+                        .searchByBookerInPresentTime(ownerId, LocalDateTime.now(), pageable);
             case WAITING:
                 return bookingRepository
-                        .searchByBookerAndStatus(ownerId, BookingStatus.WAITING, pageable).getContent();
+                        .searchByBookerAndStatus(ownerId, BookingStatus.WAITING, pageable);
             case REJECTED:
                 return bookingRepository
-                        .searchByBookerAndStatus(ownerId, BookingStatus.REJECTED, pageable).getContent();
+                        .searchByBookerAndStatus(ownerId, BookingStatus.REJECTED, pageable);
             default:
                 throw new BadEntityException("Unknown state");
         }
     }
 
-    public List<Booking> getBookingsByItemsOwner(long ownerId, BookingSearchType type, Pageable pageable) {
+    private Slice<BookingView> searchBookingsByItemsOwner(long ownerId, BookingSearchType type, Pageable pageable) {
         switch (type) {
             case ALL:
                 return bookingRepository
-                        .searchByItemOwner(ownerId, pageable).getContent();
+                        .searchByItemOwner(ownerId, pageable);
             case PAST:
                 return bookingRepository
-                        .searchByItemOwnerInPastTime(ownerId, LocalDateTime.now(), pageable).getContent();
+                        .searchByItemOwnerInPastTime(ownerId, LocalDateTime.now(), pageable);
             case FUTURE:
                 return bookingRepository
-                        .searchBookingsByItemOwnerInFutureTime(ownerId, LocalDateTime.now(), pageable).getContent();
+                        .searchBookingsByItemOwnerInFutureTime(ownerId, LocalDateTime.now(), pageable);
             case CURRENT:
                 return bookingRepository
-                        .searchByItemOwnerInPresentTime(ownerId, LocalDateTime.now(), pageable).getContent();
+                        .searchByItemOwnerInPresentTime(ownerId, LocalDateTime.now(), pageable);
             case WAITING:
                 return bookingRepository
-                        .searchByItemOwnerAndStatus(ownerId, BookingStatus.WAITING, pageable).getContent();
+                        .searchByItemOwnerAndStatus(ownerId, BookingStatus.WAITING, pageable);
+            case REJECTED:
+                return bookingRepository
+                        .searchByItemOwnerAndStatus(ownerId, BookingStatus.REJECTED, pageable);
+            default:
+                throw new BadEntityException("Unknown state");
+        }
+    }
+
+    private Slice<BookingView> getBookingsAfter(long ownerId, BookingSearchType type, BookingCursor after,
+                                            Pageable pageable) {
+        switch (type) {
+            case ALL:
+                return bookingRepository
+                        .searchByBookerAfter(ownerId, after.getStart(), after.getId(), pageable);
+            case PAST:
+                return bookingRepository.searchByBookerInPastTimeAfter(ownerId, LocalDateTime.now(),
+                        after.getStart(), after.getId(), pageable);
+            case FUTURE:
+                return bookingRepository.searchByBookerInFutureTimeAfter(ownerId, LocalDateTime.now(),
+                        after.getStart(), after.getId(), pageable);
+            case CURRENT:
+                return bookingRepository.searchByBookerInPresentTimeAfter(ownerId, LocalDateTime.now(),
+                        after.getStart(), after.getId(), pageable);
+            case WAITING:
+                return bookingRepository.searchByBookerAndStatusAfter(ownerId, BookingStatus.WAITING,
+                        after.getStart(), after.getId(), pageable);
             case REJECTED:
+                return bookingRepository.searchByBookerAndStatusAfter(ownerId, BookingStatus.REJECTED,
+                        after.getStart(), after.getId(), pageable);
+            default:
+                throw new BadEntityException("Unknown state");
+        }
+    }
+
+    private Slice<BookingView> getBookingsByItemsOwnerAfter(long ownerId, BookingSearchType type, BookingCursor after,
+                                                        Pageable pageable) {
+        switch (type) {
+            case ALL:
                 return bookingRepository
-                        .searchByItemOwnerAndStatus(ownerId, BookingStatus.REJECTED, pageable).getContent();
+                        .searchByItemOwnerAfter(ownerId, after.getStart(), after.getId(), pageable);
+            case PAST:
+                return bookingRepository.searchByItemOwnerInPastTimeAfter(ownerId, LocalDateTime.now(),
+                        after.getStart(), after.getId(), pageable);
+            case FUTURE:
+                return bookingRepository.searchBookingsByItemOwnerInFutureTimeAfter(ownerId, LocalDateTime.now(),
+                        after.getStart(), after.getId(), pageable);
+            case CURRENT:
+                return bookingRepository.searchByItemOwnerInPresentTimeAfter(ownerId, LocalDateTime.now(),
+                        after.getStart(), after.getId(), pageable);
+            case WAITING:
+                return bookingRepository.searchByItemOwnerAndStatusAfter(ownerId, BookingStatus.WAITING,
+                        after.getStart(), after.getId(), pageable);
+            case REJECTED:
+                return bookingRepository.searchByItemOwnerAndStatusAfter(ownerId, BookingStatus.REJECTED,
+                        after.getStart(), after.getId(), pageable);
             default:
                 throw new BadEntityException("Unknown state");
         }
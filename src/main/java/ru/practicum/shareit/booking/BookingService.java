@@ -1,12 +1,21 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoWithId;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ItemNotOwnedByUserException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemMapper;
@@ -14,18 +23,31 @@ import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingService {
 
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final String OVERLAP_MESSAGE = "Booking can't be made to one item more than one time";
+
     private final BookingRepository bookingRepository;
 
     private final UserRepository userRepository;
@@ -38,12 +60,92 @@ public class BookingService {
 
     private final UserMapper userMapper;
 
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    private final ItemBookingLock itemBookingLock;
+
+    private final BookingSearch bookingSearch;
+
     public BookingDto createBooking(BookingDtoWithId bookingDto, Long userId) {
-        checkUserExists(userId);
         Booking booking = toBookingWithItemAndBooker(bookingDto, userId);
         checkBookingBasicConstraints(booking, userId);
         booking.setStatus(BookingStatus.WAITING);
-        return toDtoWithItemAndBooker(bookingRepository.save(booking));
+        Booking savedBooking = itemBookingLock.withLock(booking.getItem().getId(), () -> {
+            checkNoActiveOverlap(booking);
+            Booking saved = bookingRepository.save(booking);
+            bookingIntervalIndex.update(saved);
+            return saved;
+        });
+        return toDtoWithItemAndBooker(savedBooking);
+    }
+
+    /**
+     * Creates a batch of bookings for one booker. The booker and all items are loaded once, entries are
+     * checked against each other and against stored bookings in one pass ordered by item and start,
+     * and the accepted ones are inserted together. Rejected entries are reported with their error;
+     * of two overlapping entries the one that starts earlier wins.
+     */
+    public List<BookingBatchResultDto> createBookings(List<BookingDtoWithId> bookingDtos, Long userId) {
+        checkBatchSize(bookingDtos);
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден в системе"));
+        Set<Long> itemIds = bookingDtos.stream()
+                .map(BookingDtoWithId::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtos.size()];
+        Map<Booking, Integer> positions = new IdentityHashMap<>();
+        List<Booking> candidates = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDtoWithId bookingDto = bookingDtos.get(i);
+            try {
+                Booking booking = bookingMapper.bookingDtotoBooking(bookingDto);
+                Item item = items.get(bookingDto.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Предмет не найден в системе");
+                }
+                booking.setItem(item);
+                booking.setBooker(booker);
+                checkBookingBasicConstraints(booking, userId);
+                booking.setStatus(BookingStatus.WAITING);
+                candidates.add(booking);
+                positions.put(booking, i);
+            } catch (NotFoundException | IllegalArgumentException e) {
+                results[i] = BookingBatchResultDto.builder().index(i).error(e.getMessage()).build();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of(results);
+        }
+        candidates.sort(Comparator.comparing((Booking booking) -> booking.getItem().getId())
+                .thenComparing(Booking::getStart));
+
+        Set<Long> candidateItemIds = candidates.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        List<Booking> savedBookings = itemBookingLock.withLocks(candidateItemIds, () -> {
+            for (Booking booking : findOverlapping(candidates, candidateItemIds)) {
+                int index = positions.get(booking);
+                results[index] = BookingBatchResultDto.builder().index(index).error(OVERLAP_MESSAGE).build();
+            }
+            List<Booking> accepted = candidates.stream()
+                    .filter(booking -> results[positions.get(booking)] == null)
+                    .collect(Collectors.toList());
+            List<Booking> saved = bookingRepository.saveAll(accepted);
+            saved.forEach(bookingIntervalIndex::update);
+            return saved;
+        });
+        for (Booking booking : savedBookings) {
+            int index = positions.get(booking);
+            results[index] = BookingBatchResultDto.builder()
+                    .index(index)
+                    .booking(toDtoWithItemAndBooker(booking))
+                    .build();
+        }
+        return List.of(results);
     }
 
     public BookingDto changeBookingStatus(Long bookingId, Boolean isApproved, Long requesterId) {
@@ -54,57 +156,74 @@ public class BookingService {
         if (!Objects.equals(booking.getItem().getOwner().getId(), requesterId)) {
             throw new ItemNotOwnedByUserException("Статус бронирования может менять только владелец");
         }
+        if (booking.getStatus() == BookingStatus.EXPIRED) {
+            throw new BadEntityException("Срок ожидания подтверждения бронирования истек");
+        }
         BookingStatus newStatus = isApproved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
         if (booking.getStatus().equals(newStatus)) {
             throw new BadEntityException("Статус бронирования уже изменен");
         }
         booking.setStatus(newStatus);
-        bookingRepository.save(booking);
+        try {
+            bookingRepository.save(booking);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictException("Статус бронирования был изменен параллельным запросом");
+        }
+        bookingIntervalIndex.update(booking);
         return toDtoWithItemAndBooker(booking);
     }
 
     public BookingDto getBooking(Long requesterId, Long bookingId) {
-        Booking booking = bookingRepository
-                .findById(bookingId)
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if (booking.isPresent()) {
+            checkItemOwner(booking.get(), requesterId);
+            return toDtoWithItemAndBooker(booking.get());
+        }
+        ArchivedBooking archived = bookingRepository.findArchivedById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование с id " + bookingId + " не найдено"));
-        checkItemOwner(booking, requesterId);
-        return toDtoWithItemAndBooker(booking);
+        checkItemOwner(archived.getBooker(), archived.getItem(), requesterId);
+        UserDto booker = userMapper.usertoUserDto(archived.getBooker());
+        return bookingMapper.archivedBookingToBookingDtoWithItemAndBooker(archived,
+                itemMapper.itemToItemDto(archived.getItem(), booker), booker);
     }
 
-    public List<BookingDto> getBookingByState(Long ownerId, String state, Pageable pageable) {
+    public BookingPage getBookingByState(Long ownerId, String state, Pageable pageable, @Nullable String cursor) {
         checkUserExists(ownerId);
         checkState(state);
         BookingSearchType type = BookingSearchType.valueOf(state);
-        BookingSearch bookingSearch = new BookingSearch(bookingRepository);
-        return bookingSearch
-                .getBookings(ownerId, type, pageable)
-                .stream()
-                .map(this::toDtoWithItemAndBooker)
-                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        return toBookingPage(bookingSearch.getBookings(ownerId, type, pageable, decodeCursor(cursor)));
     }
 
-    public List<BookingDto> getBookingByStateAndOwner(Long ownerId, String state, Pageable pageable) {
+    public BookingPage getBookingByStateAndOwner(Long ownerId, String state, Pageable pageable,
+                                                 @Nullable String cursor) {
         checkUserExists(ownerId);
         checkState(state);
         BookingSearchType type = BookingSearchType.valueOf(state);
-        BookingSearch bookingSearch = new BookingSearch(bookingRepository);
+        return toBookingPage(bookingSearch.getBookingsByItemsOwner(ownerId, type, pageable, decodeCursor(cursor)));
+    }
 
-        return bookingSearch
-                .getBookingsByItemsOwner(ownerId, type, pageable)
-                .stream()
-                .map(this::toDtoWithItemAndBooker)
+    @Nullable
+    private BookingCursor decodeCursor(@Nullable String cursor) {
+        return cursor == null ? null : BookingCursor.decode(cursor);
+    }
+
+    private BookingPage toBookingPage(Slice<BookingView> bookings) {
+        List<BookingDto> bookingsDto = bookings.stream()
+                .map(bookingMapper::bookingViewToBookingDto)
                 .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        String nextCursor = bookings.hasNext() && bookings.hasContent()
+                ? BookingCursor.of(bookings.getContent().get(bookings.getNumberOfElements() - 1)).encode()
+                : null;
+        return new BookingPage(bookingsDto, nextCursor);
     }
 
     private Booking toBookingWithItemAndBooker(BookingDtoWithId bookingDto, Long userId) {
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден в системе"));
         Booking booking = bookingMapper.bookingDtotoBooking(bookingDto);
-        Long itemId = bookingDto.getItemId();
-        if (itemRepository.findById(itemId).isEmpty()
-                || userRepository.findById(userId).isEmpty()) {
-            throw new NotFoundException("Пользователь или предмет не найдены в системе");
-        }
-        booking.setItem(itemRepository.findById(itemId).get());
-        booking.setBooker(userRepository.findById(userId).get());
+        booking.setItem(itemRepository.findById(bookingDto.getItemId())
+                .orElseThrow(() -> new NotFoundException("Пользователь или предмет не найдены в системе")));
+        booking.setBooker(booker);
         return booking;
     }
 
@@ -116,20 +235,19 @@ public class BookingService {
     }
 
     private void checkItemOwner(Booking booking, Long requesterId) {
-        if (!Objects.equals(booking.getBooker().getId(), requesterId)
-                && !Objects.equals(booking.getItem().getOwner().getId(), requesterId)) {
+        checkItemOwner(booking.getBooker(), booking.getItem(), requesterId);
+    }
+
+    private void checkItemOwner(User booker, Item item, Long requesterId) {
+        if (!Objects.equals(booker.getId(), requesterId)
+                && !Objects.equals(item.getOwner().getId(), requesterId)) {
             throw new ItemNotOwnedByUserException("Бронирование может быть изменено" +
                     " только владельцем предмета или автором");
         }
     }
 
     private void checkBookingBasicConstraints(Booking booking, Long requesterId) {
-        checkUserExists(requesterId);
-        Long itemId = booking.getItem().getId();
-        if (itemRepository.findById(itemId).isEmpty()) {
-            throw new NotFoundException("Предмет не найден в системе");
-        }
-        Item item = itemRepository.findById(itemId).get();
+        Item item = booking.getItem();
         if (Objects.equals(booking.getStart(), null)) {
             throw new BadEntityException("Booking start should be not null");
         }
@@ -151,18 +269,71 @@ public class BookingService {
         if (Boolean.FALSE.equals(item.getAvailable())) {
             throw new BadEntityException("Booking can't be made to unavailable item");
         }
+    }
+
+    private void checkNoActiveOverlap(Booking booking) {
+        if (hasActiveOverlap(booking.getItem().getId(), booking.getStart(), booking.getEnd())) {
+            throw new BadEntityException(OVERLAP_MESSAGE);
+        }
+    }
+
+    /**
+     * Sweeps the candidates, sorted by item and start, together with the stored active bookings of the
+     * same items. A candidate is accepted when nothing accepted or stored that starts before it ends
+     * after its start, and the next stored booking starts after its end.
+     */
+    private List<Booking> findOverlapping(List<Booking> candidates, Set<Long> itemIds) {
+        LocalDateTime from = candidates.stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = candidates.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+        Map<Long, List<BookingInterval>> stored = bookingRepository
+                .findIntervalsByItemIdIn(itemIds, ACTIVE_STATUSES, from, to).stream()
+                .collect(Collectors.groupingBy(BookingInterval::getItemId));
+
+        List<Booking> overlapping = new ArrayList<>();
+        Long itemId = null;
+        List<BookingInterval> itemStored = List.of();
+        int next = 0;
+        LocalDateTime maxEnd = null;
+        for (Booking booking : candidates) {
+            if (!Objects.equals(booking.getItem().getId(), itemId)) {
+                itemId = booking.getItem().getId();
+                itemStored = stored.getOrDefault(itemId, List.of());
+                next = 0;
+                maxEnd = null;
+            }
+            while (next < itemStored.size() && !itemStored.get(next).getStart().isAfter(booking.getStart())) {
+                maxEnd = later(maxEnd, itemStored.get(next).getEnd());
+                next++;
+            }
+            if (maxEnd != null && maxEnd.isAfter(booking.getStart())
+                    || next < itemStored.size() && itemStored.get(next).getStart().isBefore(booking.getEnd())) {
+                overlapping.add(booking);
+            } else {
+                maxEnd = later(maxEnd, booking.getEnd());
+            }
+        }
+        return overlapping;
+    }
 
-        List<Booking> bookings = bookingRepository.searchByItemIdAndStartAddEnd(item.getId(),
-                booking.getStart(), booking.getEnd());
+    private static LocalDateTime later(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+
+    private boolean hasActiveOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!itemBookingLock.isClusterWide() && bookingIntervalIndex.isReady()) {
+            return bookingIntervalIndex.overlaps(itemId, start, end);
+        }
+        return bookingRepository.existsOverlapping(itemId, start, end, ACTIVE_STATUSES);
+    }
 
-        if (bookings.stream().anyMatch(b -> BookingStatus.WAITING.equals(b.getStatus())
-                || BookingStatus.APPROVED.equals(b.getStatus()))) {
-            throw new BadEntityException("Booking can't be made to one item more than one time");
+    private void checkBatchSize(List<BookingDtoWithId> bookingDtos) {
+        if (bookingDtos.isEmpty() || bookingDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadEntityException("Пакет должен содержать от 1 до " + MAX_BATCH_SIZE + " бронирований");
         }
     }
 
     private void checkUserExists(Long id) {
-        if (userRepository.findById(id).isEmpty()) {
+        if (!userRepository.existsById(id)) {
             throw new NotFoundException("Пользователь не найден в системе");
         }
     }
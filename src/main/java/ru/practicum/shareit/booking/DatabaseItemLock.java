@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Locks the {@code items} row with {@code select ... for update} in a short transaction around the action,
+ * so instances sharing one database create bookings of an item one at a time.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.lock-mode", havingValue = "database")
+public class DatabaseItemLock implements ItemBookingLock {
+
+    private final ItemRepository itemRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DatabaseItemLock(ItemRepository itemRepository, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public <T> T withLock(Long itemId, Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            if (itemRepository.lockById(itemId).isEmpty()) {
+                throw new NotFoundException("Предмет не найден в системе");
+            }
+            return action.get();
+        });
+    }
+
+    @Override
+    public <T> T withLocks(Collection<Long> itemIds, Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            itemRepository.lockByIdIn(itemIds);
+            return action.get();
+        });
+    }
+
+    @Override
+    public boolean isClusterWide() {
+        return true;
+    }
+}
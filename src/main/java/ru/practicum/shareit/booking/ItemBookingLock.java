@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the overlap check and the insert of bookings for one item.
+ * Selected with {@code shareit.booking.lock-mode}: {@code jvm} (default) or {@code database}.
+ */
+public interface ItemBookingLock {
+
+    <T> T withLock(Long itemId, Supplier<T> action);
+
+    /**
+     * Holds the locks of all given items for the action. Locks are taken in a fixed order,
+     * so two batches sharing items cannot deadlock.
+     */
+    <T> T withLocks(Collection<Long> itemIds, Supplier<T> action);
+
+    /**
+     * Whether the lock also excludes other application instances. The in-memory booking index
+     * only reflects this instance, so such locks have to check overlaps against the database.
+     */
+    boolean isClusterWide();
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks shared by item ids. Bookings of one item are created one at a time,
+ * bookings of items that fall into different stripes do not wait for each other.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.lock-mode", havingValue = "jvm", matchIfMissing = true)
+public class ItemLockStripes implements ItemBookingLock {
+
+    private final Lock[] stripes;
+
+    public ItemLockStripes(@Value("${shareit.booking.lock-stripes:64}") int size) {
+        stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public <T> T withLock(Long itemId, Supplier<T> action) {
+        Lock lock = stripes[stripe(itemId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <T> T withLocks(Collection<Long> itemIds, Supplier<T> action) {
+        int[] indexes = itemIds.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClusterWide() {
+        return false;
+    }
+
+    private int stripe(Long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), stripes.length);
+    }
+}
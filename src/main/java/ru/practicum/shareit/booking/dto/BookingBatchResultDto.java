@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder(toBuilder = true)
+public final class BookingBatchResultDto {
+
+    private final int index;
+    private final BookingDto booking;
+    private final String error;
+}
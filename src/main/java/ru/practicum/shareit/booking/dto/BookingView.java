@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public final class BookingView {
+
+    private final Long id;
+
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+
+    private final BookingStatus status;
+
+    private final Long itemId;
+
+    private final String itemName;
+
+    private final String itemDescription;
+
+    private final Boolean itemAvailable;
+
+    private final Long itemRequestId;
+
+    private final Long bookerId;
+
+    private final String bookerName;
+
+    private final String bookerEmail;
+}
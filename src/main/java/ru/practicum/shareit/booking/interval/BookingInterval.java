@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking.interval;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class BookingInterval {
+
+    private final Long id;
+
+    private final Long itemId;
+
+    private final Long bookerId;
+
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+
+    private final BookingStatus status;
+
+    public static BookingInterval of(Booking booking) {
+        return new BookingInterval(booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd(), booking.getStatus());
+    }
+
+    public boolean isActive() {
+        return status == BookingStatus.WAITING || status == BookingStatus.APPROVED;
+    }
+}
@@ -0,0 +1,194 @@
+package ru.practicum.shareit.booking.interval;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * WAITING and APPROVED bookings grouped by item. Answers the overlap check of booking creation and
+ * the last/next booking of owner listings without going to the database. Every item keeps an
+ * immutable {@link ItemIntervals} snapshot that is replaced on change, so lookups take no lock.
+ * Bookings changed behind the service are picked up by {@link #verify()}, which compares the index
+ * with {@link BookingRepository} and reloads the items that drifted.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+
+    static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private Queue<Runnable> pending;
+    private volatile boolean ready;
+
+    /**
+     * Loads the active bookings and swaps them in. Changes made while loading may be missing from the
+     * loaded snapshot, so they are recorded and replayed on top of it before the swap is released.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        swapLock.writeLock().lock();
+        try {
+            pending = new ConcurrentLinkedQueue<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        Map<Long, ItemIntervals> loaded = null;
+        try {
+            loaded = load();
+        } finally {
+            swapLock.writeLock().lock();
+            try {
+                if (loaded != null) {
+                    items.keySet().retainAll(loaded.keySet());
+                    items.putAll(loaded);
+                    pending.forEach(Runnable::run);
+                    ready = true;
+                }
+                pending = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void update(Booking booking) {
+        apply(BookingInterval.of(booking));
+    }
+
+    public void apply(BookingInterval interval) {
+        change(() -> items.compute(interval.getItemId(), (itemId, intervals) -> {
+            ItemIntervals current = intervals == null ? ItemIntervals.EMPTY : intervals;
+            ItemIntervals updated = interval.isActive() ? current.with(interval) : current.without(interval.getId());
+            return updated.isEmpty() ? null : updated;
+        }));
+    }
+
+    public void remove(BookingInterval interval) {
+        change(() -> items.computeIfPresent(interval.getItemId(), (itemId, intervals) -> {
+            ItemIntervals updated = intervals.without(interval.getId());
+            return updated.isEmpty() ? null : updated;
+        }));
+    }
+
+    public void refresh(Collection<Long> itemIds) {
+        itemIds.forEach(itemId -> change(() -> reload(itemId)));
+    }
+
+    public boolean overlaps(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return intervals(itemId).overlaps(start, end);
+    }
+
+    @Nullable
+    public BookingInterval findLast(Long itemId, LocalDateTime now) {
+        return intervals(itemId).last(now);
+    }
+
+    @Nullable
+    public BookingInterval findNext(Long itemId, LocalDateTime now) {
+        return intervals(itemId).next(now);
+    }
+
+    /**
+     * Whether the item has an approved booking that starts within {@code [from, to]}.
+     */
+    public boolean hasApprovedStart(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return intervals(itemId).hasApprovedStart(from, to);
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.index.verify-delay:PT10M}",
+            fixedDelayString = "${shareit.booking.index.verify-delay:PT10M}")
+    public synchronized int verify() {
+        if (!ready) {
+            return 0;
+        }
+        Map<Long, ItemIntervals> expected = load();
+        Set<Long> itemIds = new HashSet<>(expected.keySet());
+        itemIds.addAll(items.keySet());
+        int repaired = 0;
+        for (Long itemId : itemIds) {
+            if (!Objects.equals(expected.get(itemId), items.get(itemId))) {
+                reload(itemId);
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            log.warn("Индекс бронирований расходился с базой данных для {} предметов", repaired);
+        }
+        return repaired;
+    }
+
+    private void change(Runnable change) {
+        swapLock.readLock().lock();
+        try {
+            change.run();
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private ItemIntervals intervals(Long itemId) {
+        return items.getOrDefault(itemId, ItemIntervals.EMPTY);
+    }
+
+    private void reload(Long itemId) {
+        ItemIntervals intervals = ItemIntervals.of(bookingRepository.findIntervalsByItemId(itemId, ACTIVE_STATUSES));
+        if (intervals.isEmpty()) {
+            items.remove(itemId);
+        } else {
+            items.put(itemId, intervals);
+        }
+    }
+
+    private Map<Long, ItemIntervals> load() {
+        Map<Long, List<BookingInterval>> grouped = new HashMap<>();
+        List<BookingInterval> chunk = bookingRepository.findIntervalsAfter(0L, ACTIVE_STATUSES,
+                PageRequest.of(0, LOAD_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            for (BookingInterval interval : chunk) {
+                grouped.computeIfAbsent(interval.getItemId(), itemId -> new ArrayList<>()).add(interval);
+            }
+            chunk = bookingRepository.findIntervalsAfter(chunk.get(chunk.size() - 1).getId(), ACTIVE_STATUSES,
+                    PageRequest.of(0, LOAD_CHUNK_SIZE));
+        }
+        Map<Long, ItemIntervals> loaded = new HashMap<>();
+        grouped.forEach((itemId, intervals) -> loaded.put(itemId, ItemIntervals.of(intervals)));
+        return loaded;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.interval;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the active bookings of one item, sorted by start.
+ * Prefix maxima of the end and suffix pointers to approved bookings answer overlap,
+ * last and next lookups with a single binary search; updates copy the arrays.
+ */
+final class ItemIntervals {
+
+    static final ItemIntervals EMPTY = new ItemIntervals(new BookingInterval[0]);
+
+    private static final Comparator<BookingInterval> ORDER = Comparator.comparing(BookingInterval::getStart)
+            .thenComparing(BookingInterval::getId);
+
+    private final BookingInterval[] intervals;
+    private final LocalDateTime[] maxEnd;
+    private final int[] lastApproved;
+    private final int[] nextApproved;
+
+    private ItemIntervals(BookingInterval[] intervals) {
+        Arrays.sort(intervals, ORDER);
+        this.intervals = intervals;
+        int size = intervals.length;
+        maxEnd = new LocalDateTime[size];
+        lastApproved = new int[size];
+        nextApproved = new int[size];
+        for (int i = 0; i < size; i++) {
+            LocalDateTime end = intervals[i].getEnd();
+            maxEnd[i] = i > 0 && maxEnd[i - 1].isAfter(end) ? maxEnd[i - 1] : end;
+            int last = i > 0 ? lastApproved[i - 1] : -1;
+            if (isApproved(i) && (last < 0 || end.isAfter(intervals[last].getEnd()))) {
+                last = i;
+            }
+            lastApproved[i] = last;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            nextApproved[i] = isApproved(i) ? i : i + 1 < size ? nextApproved[i + 1] : -1;
+        }
+    }
+
+    static ItemIntervals of(List<BookingInterval> intervals) {
+        return intervals.isEmpty() ? EMPTY : new ItemIntervals(intervals.toArray(new BookingInterval[0]));
+    }
+
+    ItemIntervals with(BookingInterval interval) {
+        List<BookingInterval> updated = without(interval.getId()).intervals();
+        updated.add(interval);
+        return of(updated);
+    }
+
+    ItemIntervals without(Long bookingId) {
+        List<BookingInterval> updated = intervals();
+        return updated.removeIf(interval -> Objects.equals(interval.getId(), bookingId)) ? of(updated) : this;
+    }
+
+    List<BookingInterval> intervals() {
+        return new ArrayList<>(Arrays.asList(intervals));
+    }
+
+    boolean isEmpty() {
+        return intervals.length == 0;
+    }
+
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        int before = countStartingBefore(end, false);
+        return before > 0 && maxEnd[before - 1].isAfter(start);
+    }
+
+    BookingInterval last(LocalDateTime now) {
+        int before = countStartingBefore(now, false);
+        return before > 0 && lastApproved[before - 1] >= 0 ? intervals[lastApproved[before - 1]] : null;
+    }
+
+    BookingInterval next(LocalDateTime now) {
+        int from = countStartingBefore(now, true);
+        return from < intervals.length && nextApproved[from] >= 0 ? intervals[nextApproved[from]] : null;
+    }
+
+    boolean hasApprovedStart(LocalDateTime from, LocalDateTime to) {
+        int first = countStartingBefore(from, false);
+        int approved = first < intervals.length ? nextApproved[first] : -1;
+        return approved >= 0 && approved < countStartingBefore(to, true);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ItemIntervals)) {
+            return false;
+        }
+        return Arrays.equals(intervals, ((ItemIntervals) o).intervals);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(intervals);
+    }
+
+    private int countStartingBefore(LocalDateTime time, boolean inclusive) {
+        int low = 0;
+        int high = intervals.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            LocalDateTime start = intervals[middle].getStart();
+            if (start.isBefore(time) || inclusive && start.isEqual(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean isApproved(int index) {
+        return intervals[index].getStatus() == BookingStatus.APPROVED;
+    }
+}
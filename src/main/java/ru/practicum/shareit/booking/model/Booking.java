@@ -20,7 +20,10 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Entity
@@ -34,7 +37,8 @@ public class Booking {
 
     @Id
     @Column(nullable = false, updatable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date", nullable = false)
@@ -47,6 +51,10 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", nullable = false)
     @JsonIgnore
@@ -56,4 +64,25 @@ public class Booking {
     @JoinColumn(name = "booker_id", nullable = false)
     @JsonIgnore
     private User booker;
+
+    /**
+     * Owner of the booked item, copied from it so that owner listings filter and sort on bookings alone.
+     * Written only on insert and by {@link ru.practicum.shareit.booking.BookingOwnerBackfill}, so a booking
+     * loaded before the backfill does not put a stale owner back.
+     */
+    @Column(name = "owner_id", updatable = false)
+    private Long ownerId;
+
+    @Column(name = "created_date", updatable = false)
+    private LocalDateTime created;
+
+    @PrePersist
+    void prePersist() {
+        if (item != null && item.getOwner() != null) {
+            ownerId = item.getOwner().getId();
+        }
+        if (created == null) {
+            created = LocalDateTime.now();
+        }
+    }
 }
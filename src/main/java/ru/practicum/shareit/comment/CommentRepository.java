@@ -1,6 +1,8 @@
 package ru.practicum.shareit.comment;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 
 import java.util.Set;
@@ -8,4 +10,8 @@ import java.util.Set;
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Set<Comment> findAllByItemId(Long itemId);
+
+    @Query("select new ru.practicum.shareit.comment.dto.CommentDto(c.id, c.text, a.id, a.name, c.created) "
+            + "from Comment c join c.author a where c.item.id = ?1")
+    Set<CommentDto> findDtosByItemId(Long itemId);
 }
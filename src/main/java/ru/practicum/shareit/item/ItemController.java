@@ -4,6 +4,10 @@ import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,11 +20,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.availability.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.search.ItemSearchPage;
+import ru.practicum.shareit.service.OffsetPageRequest;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +39,8 @@ import java.util.Map;
 @Validated
 public class ItemController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int ALL_MATCHES = Integer.MAX_VALUE / 2;
 
     private final ItemService itemService;
 
@@ -56,6 +67,20 @@ public class ItemController {
         return itemService.getTargetItem(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<ItemAvailabilityDto> getAvailability(
+            @PathVariable Long itemId,
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ItemAvailabilityDto availability = itemService.getAvailability(itemId, userId, from, to);
+        // the intervals only change with the bookings of the item, clients revalidate by ETag
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(DigestUtils.md5DigestAsHex(availability.toString().getBytes(StandardCharsets.UTF_8)))
+                .body(availability);
+    }
+
     @GetMapping
     public List<ItemDto> getItemsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
                                            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
@@ -65,12 +90,36 @@ public class ItemController {
         return itemService.getItemsByOwnerId(userId, pageable);
     }
 
+    /**
+     * Without {@code size} every match from {@code from} on is returned, as before the search was paged.
+     */
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestHeader("X-Sharer-User-Id") long userId,
-                                @RequestParam(required = false) @PositiveOrZero Integer from,
-                                @RequestParam(required = false) @Positive Integer size,
-                                @RequestParam String text) {
-        return itemService.getItemsFoundByText(userId, text, from, size);
+    public ResponseEntity<List<ItemDto>> search(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+                                                @RequestParam(required = false) @Positive Integer size,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "ID") String sort,
+                                                @RequestParam String text,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                LocalDateTime start,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                LocalDateTime end) {
+        Pageable pageable = OffsetPageRequest.of(from, size == null ? ALL_MATCHES : size);
+        ItemSearchPage page = itemService.getItemsFoundByText(userId, text, pageable, cursor, sort, start, end);
+        if (page.getNextCursor() == null) {
+            return ResponseEntity.ok(page.getItems());
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.getNextCursor())
+                .body(page.getItems());
+    }
+
+    @GetMapping("/search/suggest")
+    public List<String> suggest(@RequestParam String prefix,
+                                @RequestParam(defaultValue = "10") @Positive Integer size) {
+        return itemService.suggestItemNames(prefix, size);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -87,5 +88,23 @@ public class ItemMapper {
                 .comments(comments)
                 .build();
     }
-}
 
+    public ItemDto itemDetailsToItemDto(ItemDetailsView details, ItemBookingDto lastBooking,
+                                        ItemBookingDto nextBooking, Set<CommentDto> comments) {
+        return ItemDto.builder()
+                .id(details.getId())
+                .name(details.getName())
+                .description(details.getDescription())
+                .available(details.getAvailable())
+                .owner(UserDto.builder()
+                        .id(details.getOwnerId())
+                        .name(details.getOwnerName())
+                        .email(details.getOwnerEmail())
+                        .build())
+                .requestId(details.getRequestId())
+                .comments(comments)
+                .lastBooking(lastBooking)
+                .nextBooking(nextBooking)
+                .build();
+    }
+}
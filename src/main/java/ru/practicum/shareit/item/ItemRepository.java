@@ -1,24 +1,128 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemBookingsView;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchView;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    String LAST_ARCHIVED_BOOKING_JOIN = "left join bookings_archive la on lb.id is null "
+            + "and la.id = (select a.id from bookings_archive a where a.item_id = i.id "
+            + "and a.status = :status and a.start_date < :now order by a.end_date desc limit 1) ";
 
+    @Query("select i from Item i where i.owner.id = :ownerId order by i.id")
     List<Item> findByOwnerIdOrderById(Long ownerId, Pageable pageable);
 
+    @EntityGraph(Item.WITH_BOOKINGS)
+    Optional<Item> findWithBookingsById(Long id);
+
+    @EntityGraph(Item.WITH_COMMENTS)
+    Optional<Item> findWithCommentsById(Long id);
+
+    @Query("select i from Item i where  i.available = true  and "
+            + "(lower(i.name) like lower(?1) or lower(i.description) like lower(?1)) order by i.id")
+    Slice<Item> findByNameOrDescription(@Nullable String text, Pageable pageable);
+
+    @Query("select i from Item i where  i.available = true  and i.id > ?2 and "
+            + "(lower(i.name) like lower(?1) or lower(i.description) like lower(?1)) order by i.id")
+    Slice<Item> findByNameOrDescriptionAfter(@Nullable String text, Long id, Pageable pageable);
+
     @Query("select i from Item i where  i.available = true  and "
-            + "(lower(i.name) like lower(?1) or lower(i.description) like lower(?1))")
-    List<Item> findByNameOrDescription(@Nullable String text);
+            + "(lower(i.name) like lower(?1) or lower(i.description) like lower(?1)) and not exists "
+            + "(select b.id from Booking b where b.item = i and b.status in ?2 and b.start < ?4 and b.end > ?3) "
+            + "order by i.id")
+    Slice<Item> findFreeByNameOrDescription(String text, Collection<BookingStatus> statuses, LocalDateTime start,
+                                            LocalDateTime end, Pageable pageable);
+
+    @Query("select i from Item i where  i.available = true  and i.id > ?2 and "
+            + "(lower(i.name) like lower(?1) or lower(i.description) like lower(?1)) and not exists "
+            + "(select b.id from Booking b where b.item = i and b.status in ?3 and b.start < ?5 and b.end > ?4) "
+            + "order by i.id")
+    Slice<Item> findFreeByNameOrDescriptionAfter(String text, Long id, Collection<BookingStatus> statuses,
+                                                 LocalDateTime start, LocalDateTime end, Pageable pageable);
 
     List<Item> findByRequestIdOrderById(Long requestId);
 
     List<Item> findAllByRequestIdInOrderById(List<Long> requestId);
+
+    @Query("select new ru.practicum.shareit.item.search.ItemSearchView(i.id, i.name, i.description) "
+            + "from Item i where i.available = true and i.id > ?1 order by i.id")
+    List<ItemSearchView> findAvailableForSearchAfter(Long id, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.item.search.ItemSearchView(i.id, i.name, i.description) "
+            + "from Item i where i.available = true and i.id in ?1")
+    List<ItemSearchView> findAvailableForSearchByIdIn(Collection<Long> ids);
+
+    @Query("select new ru.practicum.shareit.item.search.ItemSearchView(i.id, i.name, i.description) "
+            + "from Item i where i.owner.id = ?1")
+    List<ItemSearchView> findSearchViewsByOwnerId(Long ownerId);
+
+    @Query("select new ru.practicum.shareit.item.search.ItemSearchView(i.id, i.name, i.description) "
+            + "from Item i where i.available = true and i.id > ?2 and "
+            + "(lower(i.name) like lower(?1) or lower(i.description) like lower(?1)) order by i.id")
+    List<ItemSearchView> findSearchViewsByNameOrDescriptionAfter(String text, Long id, Pageable pageable);
+
+    @Query("select i.name from Item i where i.available = true and lower(i.name) like lower(?1) "
+            + "group by i.name order by count(i) desc, i.name")
+    List<String> findNamesByPrefix(String prefix, Pageable pageable);
+
+    List<Item> findAllByIdInOrderById(List<Long> ids);
+
+    @Query(value = "select id from items where id = ?1 for update", nativeQuery = true)
+    Optional<Long> lockById(Long id);
+
+    @Query(value = "select id from items where id in (?1) order by id for update", nativeQuery = true)
+    List<Long> lockByIdIn(Collection<Long> ids);
+
+    @Query(value = "select i.id as \"id\", i.name as \"name\", i.description as \"description\", "
+            + "i.is_available as \"available\", i.request_id as \"requestId\", u.id as \"ownerId\", "
+            + "u.name as \"ownerName\", u.email as \"ownerEmail\", "
+            + "coalesce(lb.id, la.id) as \"lastBookingId\", "
+            + "coalesce(lb.booker_id, la.booker_id) as \"lastBookerId\", "
+            + "nb.id as \"nextBookingId\", nb.booker_id as \"nextBookerId\" "
+            + "from items i "
+            + "join users u on u.id = i.owner_id "
+            + "left join bookings lb on lb.id = (select b.id from bookings b where b.item_id = i.id "
+            + "and b.status = :status and b.start_date < :now order by b.end_date desc limit 1) "
+            + LAST_ARCHIVED_BOOKING_JOIN
+            + "left join bookings nb on nb.id = (select b.id from bookings b where b.item_id = i.id "
+            + "and b.status = :status and b.start_date > :now order by b.start_date limit 1) "
+            + "where i.id = :itemId", nativeQuery = true)
+    Optional<ItemDetailsView> findDetailsById(Long itemId, LocalDateTime now, String status);
+
+    @Query(value = "select i.id as \"itemId\", "
+            + "coalesce(lb.id, la.id) as \"lastBookingId\", "
+            + "coalesce(lb.booker_id, la.booker_id) as \"lastBookerId\", "
+            + "nb.id as \"nextBookingId\", nb.booker_id as \"nextBookerId\" "
+            + "from items i "
+            + "left join bookings lb on lb.id = (select b.id from bookings b where b.item_id = i.id "
+            + "and b.status = :status and b.start_date < :now order by b.end_date desc limit 1) "
+            + LAST_ARCHIVED_BOOKING_JOIN
+            + "left join bookings nb on nb.id = (select b.id from bookings b where b.item_id = i.id "
+            + "and b.status = :status and b.start_date > :now order by b.start_date limit 1) "
+            + "where i.id in (:itemIds)", nativeQuery = true)
+    List<ItemBookingsView> findBookingsByIdIn(List<Long> itemIds, LocalDateTime now, String status);
+
+    @Query(value = "select i.id as \"itemId\", la.id as \"lastBookingId\", la.booker_id as \"lastBookerId\", "
+            + "cast(null as bigint) as \"nextBookingId\", cast(null as bigint) as \"nextBookerId\" "
+            + "from items i "
+            + "join bookings_archive la on la.id = (select a.id from bookings_archive a where a.item_id = i.id "
+            + "and a.status = :status and a.start_date < :now order by a.end_date desc limit 1) "
+            + "where i.id in (:itemIds)", nativeQuery = true)
+    List<ItemBookingsView> findArchivedLastBookingsByIdIn(Collection<Long> itemIds, LocalDateTime now,
+                                                          String status);
 }
@@ -1,41 +1,72 @@
 package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.ItemBookingLock;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ItemNotOwnedByUserException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.availability.AvailabilitySweep;
+import ru.practicum.shareit.item.availability.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemBookingsView;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemRelevance;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchPage;
+import ru.practicum.shareit.item.search.ItemSearchSort;
+import ru.practicum.shareit.item.search.ItemSearchView;
+import ru.practicum.shareit.item.search.SearchCursor;
+import ru.practicum.shareit.item.search.SearchPeriod;
+import ru.practicum.shareit.item.search.SearchText;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class ItemService {
 
+    private static final Duration RECENT_BOOKINGS_PERIOD = Duration.ofDays(30);
+    private static final int RANKING_CHUNK_SIZE = 1_000;
+    private static final int UPDATE_ATTEMPTS = 3;
+    private static final List<BookingStatus> BUSY_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final Duration DEFAULT_AVAILABILITY_PERIOD = Duration.ofDays(30);
+    private static final Duration MAX_AVAILABILITY_PERIOD = Duration.ofDays(366);
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
@@ -43,16 +74,20 @@ public class ItemService {
     private final ItemMapper itemMapper;
     private final CommentMapper commentMapper;
     private final UserMapper userMapper;
-
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingLock itemBookingLock;
 
     public ItemDto createItem(Long ownerId, ItemDto itemDto) {
         checkItemIsAvailable(itemDto);
-        if (userRepository.findById(ownerId).isEmpty()) {
-            throw new NotFoundException("Пользователь, для которого создается предмет, не найден в системе");
-        }
-        Item item = itemMapper.itemDtoToItem(itemDto, userRepository.findById(ownerId).get());
-        item.setOwner(userRepository.findById(ownerId).get());
+        User owner = userRepository.findById(ownerId).orElseThrow(() ->
+                new NotFoundException("Пользователь, для которого создается предмет, не найден в системе"));
+        Item item = itemMapper.itemDtoToItem(itemDto, owner);
+        item.setOwner(owner);
         itemRepository.save(item);
+        itemSearchIndex.index(item);
+        itemSearchCache.invalidate(null, null, item.getName(), item.getDescription());
         return itemMapper.itemToItemDto(item, userMapper.usertoUserDto(item.getOwner()));
     }
 
@@ -60,30 +95,25 @@ public class ItemService {
         checkUserExists(userId);
         checkItemExists(id);
         checkItemOwnerId(userId, id);
-        Item item = itemMapper.itemDtoToItem(getTargetItem(id, userId), userRepository.getReferenceById(userId));
-        if (updates.containsKey("name")) {
-            item.setName(String.valueOf(updates.get("name")));
-        }
-        if (updates.containsKey("description")) {
-            item.setDescription(String.valueOf(updates.get("description")));
-        }
-        if (updates.containsKey("available")) {
-            item.setAvailable(Boolean.parseBoolean(String.valueOf(updates.get("available"))));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return applyUpdates(id, updates);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == UPDATE_ATTEMPTS) {
+                    throw new ConflictException("Предмет одновременно изменяется другим запросом, повторите попытку");
+                }
+            }
         }
-        itemRepository.save(item);
-        return itemMapper.itemToItemDto(item, userMapper.usertoUserDto(item.getOwner()));
     }
 
 
     public ItemDto deleteItem(Long id) {
-        if (itemRepository.findById(id).isEmpty()) {
-            throw new NotFoundException("Предмет не найден в системе");
-        }
-        Item item = itemRepository.findById(id).get();
-        ItemDto itemDto = itemMapper.itemToItemDto(item,
-                userMapper.usertoUserDto(userRepository.findById(item.getOwner().getId())
-                        .orElseThrow(() -> new NotFoundException("Пользователь отсутствует в системе"))));
+        Item item = itemRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Предмет не найден в системе"));
+        ItemDto itemDto = itemMapper.itemToItemDto(item, userMapper.usertoUserDto(item.getOwner()));
         itemRepository.delete(item);
+        itemSearchIndex.remove(id);
+        itemSearchCache.invalidate(item.getName(), item.getDescription(), null, null);
         return itemDto;
     }
 
@@ -96,152 +126,136 @@ public class ItemService {
     }
 
     public ItemDto getTargetItem(Long itemId, Long userId) {
-        if (itemRepository.findById(itemId).isEmpty()) {
-            throw new NotFoundException("Предмет или пользователь отсутствуют в системе");
+        ItemDetailsView details = itemRepository.findDetailsById(itemId, LocalDateTime.now(),
+                        BookingStatus.APPROVED.name())
+                .orElseThrow(() -> new NotFoundException("Предмет или пользователь отсутствуют в системе"));
+        Set<CommentDto> comments = commentRepository.findDtosByItemId(itemId);
+        if (!Objects.equals(userId, details.getOwnerId())) {
+            return itemMapper.itemDetailsToItemDto(details, null, null, comments);
         }
-        Item item = itemRepository.findById(itemId).get();
-        Booking lastBooking = bookingRepository.searchFirstByItemIdAndStartBeforeAndStatusOrderByEndDesc(itemId,
-                LocalDateTime.now(), BookingStatus.APPROVED).orElse(null);
-        Booking nextBooking = bookingRepository.searchFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(itemId,
-                LocalDateTime.now(), BookingStatus.APPROVED).orElse(null);
-        Set<CommentDto> comments;
-        if (commentRepository.findAllByItemId(itemId).isEmpty()) {
-            comments = new HashSet<>();
-        } else {
-            comments = commentMapper.commentsToCommentsDto(commentRepository.findAllByItemId(itemId));
-        }
-        if (Objects.equals(userId, item.getOwner().getId())) {
-            if (lastBooking != null && nextBooking != null) {
-                return itemMapper.itemToItemDtoWithBookingAndComments(item, userMapper
-                                .usertoUserDto(userRepository.getReferenceById(userId)),
-                        new ItemBookingDto(lastBooking.getId(), lastBooking.getBooker().getId()),
-                        new ItemBookingDto(nextBooking.getId(), nextBooking.getBooker().getId()), comments);
-            } else if (lastBooking == null && nextBooking != null) {
-                return itemMapper.itemToItemDtoWithBookingAndComments(item, userMapper
-                                .usertoUserDto(userRepository.getReferenceById(userId)),
-                        null,
-                        new ItemBookingDto(nextBooking.getId(), nextBooking.getBooker().getId()), comments);
-            } else if (lastBooking != null) {
-                return itemMapper.itemToItemDtoWithBookingAndComments(item, userMapper
-                                .usertoUserDto(userRepository.getReferenceById(userId)),
-                        new ItemBookingDto(lastBooking.getId(), lastBooking.getBooker().getId()),
-                        null, comments);
-            } else {
-                return itemMapper.itemToItemDtoWithBookingAndComments(item, userMapper
-                                .usertoUserDto(userRepository.getReferenceById(userId)),
-                        null, null, comments);
-            }
-        } else {
-            return itemMapper.itemToItemDtoWithComments(item, userMapper.usertoUserDto(item.getOwner()), comments);
+        return itemMapper.itemDetailsToItemDto(details,
+                toItemBookingDto(details.getLastBookingId(), details.getLastBookerId()),
+                toItemBookingDto(details.getNextBookingId(), details.getNextBookerId()), comments);
+    }
+
+    public ItemAvailabilityDto getAvailability(Long itemId, Long userId, @Nullable LocalDateTime from,
+                                               @Nullable LocalDateTime to) {
+        checkUserExists(userId);
+        checkItemExists(itemId);
+        LocalDateTime start = from == null ? LocalDate.now().atStartOfDay() : from;
+        LocalDateTime end = to == null ? start.plus(DEFAULT_AVAILABILITY_PERIOD) : to;
+        if (!start.isBefore(end) || start.plus(MAX_AVAILABILITY_PERIOD).isBefore(end)) {
+            throw new BadEntityException("Период доступности должен быть непустым и не длиннее "
+                    + MAX_AVAILABILITY_PERIOD.toDays() + " дней");
         }
+        return AvailabilitySweep.merge(itemId, bookingRepository.findIntervalsByItemIdIn(List.of(itemId),
+                BUSY_STATUSES, start, end), start, end);
     }
 
 
     public List<ItemDto> getItemsByOwnerId(Long ownerId, Pageable pageable) {
-        List<Item> items = new ArrayList<>(itemRepository.findByOwnerIdOrderById(ownerId, pageable));
+        List<Item> items = itemRepository.findByOwnerIdOrderById(ownerId, pageable);
         if (items.isEmpty()) {
             return new ArrayList<>();
         }
+        LocalDateTime now = LocalDateTime.now();
         List<ItemDto> itemsDto = new ArrayList<>();
-        List<Booking> previousBookings = bookingRepository
-                .searchAllByItemIdInAndStartBeforeAndStatusOrderByItemIdAsc(
-                        items.stream()
-                                .map(Item::getId)
-                                .collect(Collectors.toList()),
-                        LocalDateTime.now(), BookingStatus.APPROVED
-                );
-        List<Booking> subsequentBookings = bookingRepository
-                .searchAllByItemIdInAndStartAfterAndStatusOrderByItemIdAsc(
-                        items.stream()
-                                .map(Item::getId)
-                                .collect(Collectors.toList()),
-                        LocalDateTime.now(), BookingStatus.APPROVED
-                );
-        Map<Long, List<Booking>> previousBookingsMap = previousBookings.stream()
-                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
-        Map<Long, List<Booking>> subsequentBookingsMap = subsequentBookings.stream()
-                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
-
-        for (Item item : items) {
-            List<Booking> previousBooking = previousBookingsMap.get(item.getId());
-            List<Booking> subsequentBooking = subsequentBookingsMap.get(item.getId());
-            if ((previousBooking != null && !previousBooking.isEmpty())
-                    && (subsequentBooking != null && !subsequentBookings.isEmpty())) {
-                Booking lastBooking = previousBooking.stream()
-                        .sorted(Comparator.comparing(Booking::getEnd).reversed())
-                        .limit(1)
-                        .collect(Collectors.toList()).get(0);
-                Booking nextBooking = subsequentBooking.stream()
-                        .sorted(Comparator.comparing(Booking::getStart))
-                        .limit(1)
-                        .collect(Collectors.toList()).get(0);
-                itemsDto.add(itemMapper.itemToItemDtoWithBookings(item, userMapper.usertoUserDto(item.getOwner()),
-                        new ItemBookingDto(lastBooking.getId(), lastBooking.getBooker().getId()),
-                        new ItemBookingDto(nextBooking.getId(), nextBooking.getBooker().getId())));
-            } else if ((previousBooking != null && !previousBooking.isEmpty())
-                    && (subsequentBooking == null && subsequentBookings.isEmpty())) {
-                Booking lastBooking = previousBooking.stream()
-                        .sorted(Comparator.comparing(Booking::getEnd).reversed())
-                        .limit(1)
-                        .collect(Collectors.toList()).get(0);
-                itemsDto.add(itemMapper.itemToItemDtoWithBookings(item, userMapper.usertoUserDto(item.getOwner()),
-                        new ItemBookingDto(lastBooking.getId(), lastBooking.getBooker().getId()), null));
-            } else if (subsequentBooking != null && !subsequentBookings.isEmpty()) {
-                Booking nextBooking = subsequentBooking.stream()
-                        .sorted(Comparator.comparing(Booking::getEnd).reversed())
-                        .limit(1)
-                        .collect(Collectors.toList()).get(0);
-                itemsDto.add(itemMapper.itemToItemDtoWithBookings(item, userMapper.usertoUserDto(item.getOwner()),
-                        null, new ItemBookingDto(nextBooking.getId(), nextBooking.getBooker().getId())));
-            } else {
+        if (isIntervalIndexComplete()) {
+            Map<Long, ItemBookingDto> lastBookings = new HashMap<>();
+            List<Long> withoutLast = new ArrayList<>();
+            for (Item item : items) {
+                BookingInterval last = bookingIntervalIndex.findLast(item.getId(), now);
+                if (last == null) {
+                    withoutLast.add(item.getId());
+                } else {
+                    lastBookings.put(item.getId(), toItemBookingDto(last));
+                }
+            }
+            // the index drops bookings once they are archived
+            if (!withoutLast.isEmpty()) {
+                itemRepository.findArchivedLastBookingsByIdIn(withoutLast, now, BookingStatus.APPROVED.name())
+                        .forEach(archived -> lastBookings.put(archived.getItemId(),
+                                toItemBookingDto(archived.getLastBookingId(), archived.getLastBookerId())));
+            }
+            for (Item item : items) {
                 itemsDto.add(itemMapper.itemToItemDtoWithBookings(item, userMapper.usertoUserDto(item.getOwner()),
-                        null, null));
+                        lastBookings.get(item.getId()),
+                        toItemBookingDto(bookingIntervalIndex.findNext(item.getId(), now))));
             }
+            return itemsDto;
+        }
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        Map<Long, ItemBookingsView> bookings = itemRepository
+                .findBookingsByIdIn(itemIds, now, BookingStatus.APPROVED.name()).stream()
+                .collect(Collectors.toMap(ItemBookingsView::getItemId, Function.identity()));
+        for (Item item : items) {
+            ItemBookingsView itemBookings = bookings.get(item.getId());
+            itemsDto.add(itemMapper.itemToItemDtoWithBookings(item, userMapper.usertoUserDto(item.getOwner()),
+                    toItemBookingDto(itemBookings.getLastBookingId(), itemBookings.getLastBookerId()),
+                    toItemBookingDto(itemBookings.getNextBookingId(), itemBookings.getNextBookerId())));
         }
         return itemsDto;
     }
 
 
-    public List<ItemDto> getItemsFoundByText(Long userId, String keyWord, Integer from, Integer size) {
+    public ItemSearchPage getItemsFoundByText(Long userId, String keyWord, Pageable pageable,
+                                              @Nullable String cursor, String sort) {
+        return getItemsFoundByText(userId, keyWord, pageable, cursor, sort, null, null);
+    }
+
+    public ItemSearchPage getItemsFoundByText(Long userId, String keyWord, Pageable pageable,
+                                              @Nullable String cursor, String sort,
+                                              @Nullable LocalDateTime start, @Nullable LocalDateTime end) {
+        checkSearchSort(sort);
+        SearchPeriod period = toSearchPeriod(start, end);
         if (keyWord.trim().isEmpty()) {
-            return Collections.emptyList();
+            return ItemSearchPage.empty();
         }
         checkUserExists(userId);
-        String query = "%" + keyWord.trim().toLowerCase() + "%";
-
-        int firstId = Objects.isNull(from) ? 0 : from;
-
-        List<Item> items = itemRepository.findByNameOrDescription(query);
-        List<ItemDto> itemsDto = new ArrayList<>();
-        for (Item item : items) {
-            itemsDto.add(itemMapper.itemToItemDto(item, userMapper.usertoUserDto(item.getOwner())));
+        ItemSearchSort searchSort = ItemSearchSort.valueOf(sort);
+        if (searchSort == ItemSearchSort.RELEVANCE && cursor != null) {
+            throw new BadEntityException("Курсор не поддерживается при сортировке по релевантности");
         }
-
-        if (size != null) {
-            int lastId = Math.min((from + size - 1), itemsDto.size());
-            itemsDto = itemsDto.subList(firstId, lastId);
+        Long afterId = cursor == null ? null : SearchCursor.decode(cursor);
+        if (period != null) {
+            // free items change with bookings, which do not invalidate the search cache
+            return searchItems(keyWord, pageable, afterId, searchSort, period);
         }
+        ItemSearchCache.Key key = new ItemSearchCache.Key(SearchText.normalize(keyWord), searchSort,
+                pageable.getOffset(), pageable.getPageSize(), cursor);
+        return itemSearchCache.get(key, () -> searchItems(keyWord, pageable, afterId, searchSort, null));
+    }
 
-        return itemsDto;
+    public List<String> suggestItemNames(String prefix, Integer size) {
+        if (prefix.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (itemSearchIndex.isReady()) {
+            return itemSearchIndex.suggest(prefix, size);
+        }
+        return itemRepository.findNamesByPrefix(prefix.trim().toLowerCase() + "%", PageRequest.of(0, size));
     }
 
     public CommentDto addComment(Long itemId, Long userId, CommentDto commentDto) {
-        checkUserExists(userId);
-        checkItemExists(itemId);
+        User author = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь отсутствует в системе"));
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Предмет отсутствует в системе"));
         checkCommentEmpty(commentDto);
-        Optional<User> user = userRepository.findById(userId);
-        User author = user.orElse(null);
-        Optional<Item> itemOptional = itemRepository.findById(itemId);
-        Item item = itemOptional.orElse(null);
+        LocalDateTime now = LocalDateTime.now();
         if (!bookingRepository.existsByItemIdAndBookerIdAndStatusAndEndIsBefore
-                (itemId, userId, BookingStatus.APPROVED, LocalDateTime.now())) {
+                (itemId, userId, BookingStatus.APPROVED, now)
+                && !bookingRepository.existsArchivedByItemIdAndBookerIdAndStatusAndEndIsBefore
+                (itemId, userId, BookingStatus.APPROVED, now)) {
             throw new BadEntityException
                     ("Не возможно добавить комментарий к предмету, находящемуся в бронировании");
         }
         Comment comment = commentMapper.commentDtoToComment(commentDto);
         comment.setAuthor(author);
         comment.setItem(item);
-        comment.setCreated(LocalDateTime.now());
+        comment.setCreated(now);
         commentRepository.save(comment);
         return commentMapper.commentToCommentDto(comment);
     }
@@ -255,6 +269,200 @@ public class ItemService {
         return itemsDto;
     }
 
+    private ItemDto applyUpdates(Long id, Map<String, Object> updates) {
+        Item item = itemRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Предмет отсутствует в системе"));
+        String oldName = item.getName();
+        String oldDescription = item.getDescription();
+        if (updates.containsKey("name")) {
+            item.setName(String.valueOf(updates.get("name")));
+        }
+        if (updates.containsKey("description")) {
+            item.setDescription(String.valueOf(updates.get("description")));
+        }
+        if (updates.containsKey("available")) {
+            item.setAvailable(Boolean.parseBoolean(String.valueOf(updates.get("available"))));
+        }
+        itemRepository.save(item);
+        itemSearchIndex.index(item);
+        itemSearchCache.invalidate(oldName, oldDescription, item.getName(), item.getDescription());
+        return itemMapper.itemToItemDto(item, userMapper.usertoUserDto(item.getOwner()));
+    }
+
+    private ItemSearchPage searchItems(String keyWord, Pageable pageable, @Nullable Long afterId,
+                                       ItemSearchSort sort, @Nullable SearchPeriod period) {
+        String query = "%" + keyWord.trim().toLowerCase() + "%";
+        if (sort == ItemSearchSort.RELEVANCE) {
+            return new ItemSearchPage(toItemsDto(findRankedItems(keyWord, query, pageable, freeIn(period))), null);
+        }
+        if (itemSearchIndex.isReady()) {
+            return findIndexedItems(keyWord, afterId, pageable, freeIn(period));
+        }
+        Slice<Item> items;
+        if (period == null && afterId == null) {
+            items = itemRepository.findByNameOrDescription(query, pageable);
+        } else if (period == null) {
+            items = itemRepository.findByNameOrDescriptionAfter(query, afterId,
+                    PageRequest.of(0, pageable.getPageSize()));
+        } else if (afterId == null) {
+            items = itemRepository.findFreeByNameOrDescription(query, BUSY_STATUSES, period.getStart(),
+                    period.getEnd(), pageable);
+        } else {
+            items = itemRepository.findFreeByNameOrDescriptionAfter(query, afterId, BUSY_STATUSES,
+                    period.getStart(), period.getEnd(), PageRequest.of(0, pageable.getPageSize()));
+        }
+        List<ItemDto> itemsDto = toItemsDto(items.getContent());
+        String nextCursor = items.hasNext()
+                ? SearchCursor.encode(itemsDto.get(itemsDto.size() - 1).getId())
+                : null;
+        return new ItemSearchPage(itemsDto, nextCursor);
+    }
+
+    private List<Item> findRankedItems(String keyWord, String query, Pageable pageable, LongPredicate free) {
+        int limit = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ranked;
+        if (itemSearchIndex.isReady()) {
+            ranked = itemSearchIndex.searchRankedWithLookup(keyWord, limit, recentlyBooked(now), free);
+        } else {
+            ranked = rankScannedItems(query, keyWord, limit, free, now);
+        }
+        if (pageable.getOffset() >= ranked.size()) {
+            return Collections.emptyList();
+        }
+        List<Long> pageIds = ranked.subList((int) pageable.getOffset(), ranked.size());
+        Map<Long, Item> items = itemRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        return pageIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> rankScannedItems(String query, String keyWord, int limit, LongPredicate free,
+                                        LocalDateTime now) {
+        String normalized = SearchText.normalize(keyWord);
+        long[] ids = new long[RANKING_CHUNK_SIZE];
+        int[] scores = new int[RANKING_CHUNK_SIZE];
+        int count = 0;
+        List<ItemSearchView> chunk = itemRepository.findSearchViewsByNameOrDescriptionAfter(query, 0L,
+                PageRequest.of(0, RANKING_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            for (ItemSearchView item : chunk) {
+                if (!free.test(item.getId())) {
+                    continue;
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+                ids[count] = item.getId();
+                scores[count++] = ItemRelevance.score(SearchText.normalize(item.getName()),
+                        SearchText.normalize(item.getDescription()), normalized, false);
+            }
+            chunk = itemRepository.findSearchViewsByNameOrDescriptionAfter(query,
+                    chunk.get(chunk.size() - 1).getId(), PageRequest.of(0, RANKING_CHUNK_SIZE));
+        }
+        return ItemRelevance.rank(ids, scores, count, limit, recentlyBooked(now));
+    }
+
+    /**
+     * Which of the given candidates had an approved booking start in the last 30 days. Answered by the booking
+     * interval index when it sees all bookings, otherwise by a query over the candidate ids only.
+     */
+    private Function<List<Long>, LongPredicate> recentlyBooked(LocalDateTime now) {
+        LocalDateTime from = now.minus(RECENT_BOOKINGS_PERIOD);
+        if (isIntervalIndexComplete()) {
+            return ids -> itemId -> bookingIntervalIndex.hasApprovedStart(itemId, from, now);
+        }
+        return ids -> {
+            Set<Long> booked = new HashSet<>();
+            for (int i = 0; i < ids.size(); i += RANKING_CHUNK_SIZE) {
+                booked.addAll(bookingRepository.findItemIdsByStatusAndStartBetween(
+                        ids.subList(i, Math.min(i + RANKING_CHUNK_SIZE, ids.size())), BookingStatus.APPROVED,
+                        from, now));
+            }
+            return booked::contains;
+        };
+    }
+
+    /**
+     * The booking interval index is loaded and, with a node-local booking lock, sees every booking.
+     */
+    private boolean isIntervalIndexComplete() {
+        return !itemBookingLock.isClusterWide() && bookingIntervalIndex.isReady();
+    }
+
+    private List<ItemDto> toItemsDto(List<Item> items) {
+        List<ItemDto> itemsDto = new ArrayList<>();
+        for (Item item : items) {
+            itemsDto.add(itemMapper.itemToItemDto(item, userMapper.usertoUserDto(item.getOwner())));
+        }
+        return itemsDto;
+    }
+
+    /**
+     * One page of index matches. The cursor is the last id taken from the index, so items deleted
+     * behind the index only shorten the page.
+     */
+    private ItemSearchPage findIndexedItems(String keyWord, @Nullable Long afterId, Pageable pageable,
+                                            LongPredicate free) {
+        int size = pageable.getPageSize();
+        List<Long> ids = afterId == null
+                ? itemSearchIndex.search(keyWord, 0L, pageable.getOffset(), size + 1, free)
+                : itemSearchIndex.search(keyWord, afterId, 0, size + 1, free);
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        List<Item> items = pageIds.isEmpty()
+                ? Collections.emptyList()
+                : itemRepository.findAllByIdInOrderById(pageIds);
+        String nextCursor = hasNext ? SearchCursor.encode(pageIds.get(pageIds.size() - 1)) : null;
+        return new ItemSearchPage(toItemsDto(items), nextCursor);
+    }
+
+    /**
+     * Items free in the period, answered by the booking interval index or by one query for the busy items.
+     */
+    private LongPredicate freeIn(@Nullable SearchPeriod period) {
+        if (period == null) {
+            return itemId -> true;
+        }
+        if (isIntervalIndexComplete()) {
+            return itemId -> !bookingIntervalIndex.overlaps(itemId, period.getStart(), period.getEnd());
+        }
+        Set<Long> busy = new HashSet<>(bookingRepository.findItemIdsOverlapping(BUSY_STATUSES, period.getStart(),
+                period.getEnd()));
+        return itemId -> !busy.contains(itemId);
+    }
+
+    @Nullable
+    private static SearchPeriod toSearchPeriod(@Nullable LocalDateTime start, @Nullable LocalDateTime end) {
+        if (start == null && end == null) {
+            return null;
+        }
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new BadEntityException("Для поиска свободных предметов нужны начало и конец периода, "
+                    + "начало раньше конца");
+        }
+        return new SearchPeriod(start, end);
+    }
+
+    @Nullable
+    private static ItemBookingDto toItemBookingDto(@Nullable Long bookingId, @Nullable Long bookerId) {
+        return bookingId == null ? null : new ItemBookingDto(bookingId, bookerId);
+    }
+
+    @Nullable
+    private static ItemBookingDto toItemBookingDto(@Nullable BookingInterval booking) {
+        return booking == null ? null : new ItemBookingDto(booking.getId(), booking.getBookerId());
+    }
+
+    private void checkSearchSort(String sort) {
+        if (Arrays.stream(ItemSearchSort.values()).noneMatch(value -> value.name().equals(sort))) {
+            throw new BadEntityException("Unknown sort: " + sort);
+        }
+    }
+
     private void checkUserExists(Long id) {
         if (!userRepository.existsById(id)) {
             throw new NotFoundException("Пользователь отсутствует в системе");
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public final class AvailabilityInterval {
+
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+}
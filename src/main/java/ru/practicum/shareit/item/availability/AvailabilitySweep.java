@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item.availability;
+
+import ru.practicum.shareit.booking.interval.BookingInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the bookings of an item into busy blocks and the free gaps between them in one pass.
+ * Bookings must be ordered by start; overlapping and touching bookings form one busy block,
+ * and everything is clipped to the requested window.
+ */
+public final class AvailabilitySweep {
+
+    private AvailabilitySweep() {
+    }
+
+    public static ItemAvailabilityDto merge(Long itemId, List<BookingInterval> bookings, LocalDateTime from,
+                                            LocalDateTime to) {
+        List<AvailabilityInterval> busy = new ArrayList<>();
+        List<AvailabilityInterval> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = null;
+        for (BookingInterval booking : bookings) {
+            LocalDateTime start = booking.getStart().isBefore(from) ? from : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(to) ? to : booking.getEnd();
+            if (!start.isBefore(end)) {
+                continue;
+            }
+            if (busyEnd != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) {
+                    busyEnd = end;
+                }
+                continue;
+            }
+            if (busyEnd != null) {
+                busy.add(new AvailabilityInterval(busyStart, busyEnd));
+                freeFrom = busyEnd;
+            }
+            if (freeFrom.isBefore(start)) {
+                free.add(new AvailabilityInterval(freeFrom, start));
+            }
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyEnd != null) {
+            busy.add(new AvailabilityInterval(busyStart, busyEnd));
+            freeFrom = busyEnd;
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new AvailabilityInterval(freeFrom, to));
+        }
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .from(from)
+                .to(to)
+                .busy(busy)
+                .free(free)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.availability;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public final class ItemAvailabilityDto {
+
+    private final Long itemId;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+
+    private final List<AvailabilityInterval> busy;
+
+    private final List<AvailabilityInterval> free;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemBookingsView {
+
+    Long getItemId();
+
+    Long getLastBookingId();
+
+    Long getLastBookerId();
+
+    Long getNextBookingId();
+
+    Long getNextBookerId();
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemDetailsView {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Long getRequestId();
+
+    Long getOwnerId();
+
+    String getOwnerName();
+
+    String getOwnerEmail();
+
+    Long getLastBookingId();
+
+    Long getLastBookerId();
+
+    Long getNextBookingId();
+
+    Long getNextBookerId();
+}
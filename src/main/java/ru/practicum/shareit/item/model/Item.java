@@ -19,22 +19,32 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.Set;
 
 @Entity
 @Setter
 @Getter
 @Table(name = "items")
+@NamedEntityGraph(name = Item.WITH_BOOKINGS, attributeNodes = @NamedAttributeNode("itemBookings"))
+@NamedEntityGraph(name = Item.WITH_COMMENTS, attributeNodes = @NamedAttributeNode("itemComments"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder(toBuilder = true)
 public class Item {
 
+    public static final String WITH_BOOKINGS = "Item.withBookings";
+    public static final String WITH_COMMENTS = "Item.withComments";
+
     @Id
     @Column(nullable = false, updatable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -49,14 +59,18 @@ public class Item {
     @Column
     private Long requestId;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "owner_id", nullable = false)
     @JsonIgnore
     private User owner;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "item", cascade = CascadeType.ALL)
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "item", cascade = CascadeType.ALL)
     private Set<Booking> itemBookings;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "item", cascade = CascadeType.ALL)
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "item", cascade = CascadeType.ALL)
     private Set<Comment> itemComments;
 }
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * Scores a normalized query against normalized item text. A name match always outranks a
+ * description match, and within a field an exact token outranks a token prefix, which
+ * outranks a plain substring. Zero means the item does not match.
+ * Recently booked items get a small boost on top, see {@link #rank}.
+ */
+public final class ItemRelevance {
+
+    private static final int NAME_WEIGHT = 20;
+    private static final int DESCRIPTION_WEIGHT = 4;
+    private static final int BOOKING_BOOST = 2;
+
+    private static final int SUBSTRING = 1;
+    private static final int PREFIX = 2;
+    private static final int TOKEN = 3;
+
+    private ItemRelevance() {
+    }
+
+    /**
+     * Best {@code limit} of the scored ids once the booking boost is added. The boost only moves matches
+     * scored within {@link #BOOKING_BOOST} of the k-th unboosted score, so {@code boostLookup} is asked
+     * about those ids and never about the whole match list.
+     */
+    public static List<Long> rank(long[] ids, int[] scores, int count, int limit,
+                                  Function<List<Long>, LongPredicate> boostLookup) {
+        TopK unboosted = new TopK(limit);
+        for (int i = 0; i < count; i++) {
+            unboosted.offer(ids[i], scores[i]);
+        }
+        int threshold = unboosted.size() < limit ? 1 : unboosted.lowestScore() - BOOKING_BOOST;
+        List<Long> movable = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (scores[i] > 0 && scores[i] >= threshold) {
+                movable.add(ids[i]);
+            }
+        }
+        LongPredicate boosted = movable.isEmpty() ? id -> false : boostLookup.apply(movable);
+        TopK top = new TopK(limit);
+        for (int i = 0; i < count; i++) {
+            top.offer(ids[i], scores[i] > 0 && boosted.test(ids[i]) ? scores[i] + BOOKING_BOOST : scores[i]);
+        }
+        return top.ids();
+    }
+
+    public static int score(String name, String description, String query, boolean boosted) {
+        int nameLevel = level(name, query);
+        int descriptionLevel = level(description, query);
+        if (nameLevel == 0 && descriptionLevel == 0) {
+            return 0;
+        }
+        return nameLevel * NAME_WEIGHT + descriptionLevel * DESCRIPTION_WEIGHT + (boosted ? BOOKING_BOOST : 0);
+    }
+
+    private static int level(String text, String query) {
+        int best = 0;
+        int from = text.indexOf(query);
+        while (from >= 0 && best < TOKEN) {
+            int end = from + query.length();
+            if (isBoundary(text, from - 1)) {
+                best = Math.max(best, isBoundary(text, end) ? TOKEN : PREFIX);
+            } else {
+                best = Math.max(best, SUBSTRING);
+            }
+            from = text.indexOf(query, from + 1);
+        }
+        return best;
+    }
+
+    private static boolean isBoundary(String text, int position) {
+        return position < 0 || position >= text.length() || !Character.isLetterOrDigit(text.charAt(position));
+    }
+}
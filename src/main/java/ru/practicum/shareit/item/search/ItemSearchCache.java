@@ -0,0 +1,148 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of search pages with a time to live. A changed item evicts only the entries whose
+ * text occurs in its old or new name or description, i.e. the queries it could have matched.
+ */
+@Component
+public class ItemSearchCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public ItemSearchCache(@Value("${shareit.search.cache.max-entries:1000}") int maxEntries,
+                           @Value("${shareit.search.cache.ttl:60s}") Duration ttl) {
+        this(maxEntries, ttl, Clock.systemUTC());
+    }
+
+    ItemSearchCache(int maxEntries, Duration ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public ItemSearchPage get(Key key, Supplier<ItemSearchPage> loader) {
+        long loadedGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > clock.millis()) {
+                    hits.increment();
+                    return entry.page;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+            misses.increment();
+            loadedGeneration = generation;
+        }
+        ItemSearchPage page = loader.get();
+        synchronized (this) {
+            if (loadedGeneration == generation && maxEntries > 0) {
+                entries.put(key, new Entry(page, clock.millis() + ttlMillis));
+                evictEldest();
+            }
+        }
+        return page;
+    }
+
+    public synchronized void invalidate(@Nullable String oldName, @Nullable String oldDescription,
+                                        @Nullable String newName, @Nullable String newDescription) {
+        String[] texts = {SearchText.normalize(oldName), SearchText.normalize(oldDescription),
+                SearchText.normalize(newName), SearchText.normalize(newDescription)};
+        generation++;
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            String text = iterator.next().getText();
+            for (String candidate : texts) {
+                if (candidate.contains(text)) {
+                    iterator.remove();
+                    invalidations.increment();
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    private void evictEldest() {
+        while (entries.size() > maxEntries) {
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    public static class Key {
+
+        private final String text;
+
+        private final ItemSearchSort sort;
+
+        private final long offset;
+
+        private final int size;
+
+        private final String cursor;
+    }
+
+    private static final class Entry {
+
+        private final ItemSearchPage page;
+        private final long expiresAt;
+
+        private Entry(ItemSearchPage page, long expiresAt) {
+            this.page = page;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * Trigram index over name and description of available items. Answers the same substring
+ * queries as {@link ItemRepository#findByNameOrDescription}: posting lists of the query trigrams
+ * are intersected and the remaining candidates are verified against the indexed text.
+ * Queries shorter than a trigram are answered by scanning the indexed text.
+ * Ranked search scores the same candidates with {@link ItemRelevance} and keeps the best ones in {@link TopK}.
+ * Name completions come from a {@link NameTrie} maintained under the same lock.
+ * Items changed on another instance or deleted behind the service are picked up by {@link #verify()}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+    private static final int RELOAD_CHUNK_SIZE = 1_000;
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, IndexedText> documents = new HashMap<>();
+    private PostingList all = new PostingList();
+    private NameTrie names = new NameTrie();
+    private Set<Long> touched;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            all = new PostingList();
+            names = new NameTrie();
+            List<ItemSearchView> chunk = itemRepository.findAvailableForSearchAfter(0L,
+                    PageRequest.of(0, REBUILD_CHUNK_SIZE));
+            while (!chunk.isEmpty()) {
+                for (ItemSearchView item : chunk) {
+                    add(item.getId(), item.getName(), item.getDescription());
+                }
+                chunk = itemRepository.findAvailableForSearchAfter(chunk.get(chunk.size() - 1).getId(),
+                        PageRequest.of(0, REBUILD_CHUNK_SIZE));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            touch(item.getId());
+            delete(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                add(item.getId(), item.getName(), item.getDescription());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            touch(itemId);
+            delete(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the index with the available items of {@link ItemRepository} and reloads the items that drifted.
+     * One run reads every available item in chunks of {@value #REBUILD_CHUNK_SIZE}, so the delay between runs
+     * is the price of the check. Items indexed by the service while a run is in progress are left as they are.
+     */
+    @Scheduled(initialDelayString = "${shareit.search.index.verify-delay:PT1H}",
+            fixedDelayString = "${shareit.search.index.verify-delay:PT1H}")
+    public synchronized int verify() {
+        if (!ready) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<Long> drifted = findDrifted();
+            int reloaded = 0;
+            for (int from = 0; from < drifted.size(); from += RELOAD_CHUNK_SIZE) {
+                reloaded += reload(drifted.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, drifted.size())));
+            }
+            if (reloaded > 0) {
+                log.warn("Поисковый индекс расходился с базой данных для {} предметов", reloaded);
+            }
+            return reloaded;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public List<Long> search(String text) {
+        String query = SearchText.normalize(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (long id : candidates(query)) {
+                if (documents.get(id).contains(query)) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matches with ids above {@code afterId} in ascending order, without the first {@code skip} of them.
+     * Walks the shortest posting list from {@code afterId} and stops at {@code limit} matches,
+     * so a page costs its offset and size rather than the number of all matches.
+     */
+    public List<Long> search(String text, long afterId, long skip, int limit, LongPredicate filter) {
+        String query = SearchText.normalize(text);
+        List<Long> ids = new ArrayList<>();
+        if (query.isEmpty()) {
+            return ids;
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = postingLists(query);
+            if (lists.isEmpty()) {
+                return ids;
+            }
+            PostingList shortest = lists.get(0);
+            long skipped = 0;
+            for (int i = shortest.indexAfter(afterId); i < shortest.size() && ids.size() < limit; i++) {
+                long id = shortest.get(i);
+                if (!containsAll(lists, id) || !documents.get(id).contains(query) || !filter.test(id)) {
+                    continue;
+                }
+                if (skipped < skip) {
+                    skipped++;
+                } else {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> searchRanked(String text, int limit, LongPredicate boosted, LongPredicate filter) {
+        return searchRankedWithLookup(text, limit, ids -> boosted, filter);
+    }
+
+    /**
+     * Ranked search for a boost that costs a lookup: {@code boostLookup} is called once, outside the lock,
+     * with the matches the boost can still move, see {@link ItemRelevance#rank}.
+     */
+    public List<Long> searchRankedWithLookup(String text, int limit, Function<List<Long>, LongPredicate> boostLookup,
+                                             LongPredicate filter) {
+        String query = SearchText.normalize(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        long[] ids;
+        int[] scores;
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            long[] candidates = candidates(query);
+            ids = new long[candidates.length];
+            scores = new int[candidates.length];
+            for (long id : candidates) {
+                if (!filter.test(id)) {
+                    continue;
+                }
+                IndexedText document = documents.get(id);
+                int score = ItemRelevance.score(document.name, document.description, query, false);
+                if (score > 0) {
+                    ids[count] = id;
+                    scores[count++] = score;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ItemRelevance.rank(ids, scores, count, limit, boostLookup);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return names.complete(SearchText.normalize(prefix), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int suggestNodes() {
+        lock.readLock().lock();
+        try {
+            return names.nodes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long suggestBytes() {
+        lock.readLock().lock();
+        try {
+            return names.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(String query) {
+        List<PostingList> lists = postingLists(query);
+        if (lists.isEmpty()) {
+            return new long[0];
+        }
+        long[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).retain(candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * Posting lists of the query trigrams, shortest first, or none when a trigram is not indexed.
+     * A query shorter than a trigram is checked against every indexed item.
+     */
+    private List<PostingList> postingLists(String query) {
+        if (query.length() < GRAM) {
+            return List.of(all);
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (long gram : grams(query)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return List.of();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        return lists;
+    }
+
+    private static boolean containsAll(List<PostingList> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ids whose indexed text differs from the database, including indexed ids that are no longer available.
+     * Chunks come in id order, so the indexed ids missing from a chunk are found in the same id range of
+     * {@link #all} without collecting every stored id.
+     */
+    private List<Long> findDrifted() {
+        List<Long> drifted = new ArrayList<>();
+        long after = 0L;
+        List<ItemSearchView> chunk = itemRepository.findAvailableForSearchAfter(after,
+                PageRequest.of(0, REBUILD_CHUNK_SIZE));
+        while (true) {
+            long last = chunk.isEmpty() ? Long.MAX_VALUE : chunk.get(chunk.size() - 1).getId();
+            Set<Long> stored = new HashSet<>();
+            lock.readLock().lock();
+            try {
+                for (ItemSearchView item : chunk) {
+                    stored.add(item.getId());
+                    if (!IndexedText.of(item.getName(), item.getDescription()).equals(documents.get(item.getId()))) {
+                        drifted.add(item.getId());
+                    }
+                }
+                for (int i = all.indexAfter(after); i < all.size() && all.get(i) <= last; i++) {
+                    if (!stored.contains(all.get(i))) {
+                        drifted.add(all.get(i));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (chunk.isEmpty()) {
+                return drifted;
+            }
+            after = last;
+            chunk = itemRepository.findAvailableForSearchAfter(after, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+        }
+    }
+
+    /**
+     * Replaces the given items with their stored text. An item indexed since the run began already holds
+     * what its update wrote and is skipped, the text read here may predate that update.
+     */
+    private int reload(List<Long> ids) {
+        List<ItemSearchView> items = itemRepository.findAvailableForSearchByIdIn(ids);
+        lock.writeLock().lock();
+        try {
+            int reloaded = 0;
+            for (Long id : ids) {
+                if (!touched.contains(id)) {
+                    delete(id);
+                    reloaded++;
+                }
+            }
+            for (ItemSearchView item : items) {
+                if (!touched.contains(item.getId())) {
+                    add(item.getId(), item.getName(), item.getDescription());
+                }
+            }
+            return reloaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void touch(Long id) {
+        if (touched != null) {
+            touched.add(id);
+        }
+    }
+
+    private void add(Long id, String name, String description) {
+        IndexedText text = IndexedText.of(name, description);
+        Set<Long> grams = grams(text.name);
+        grams.addAll(grams(text.description));
+        for (long gram : grams) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+        documents.put(id, text);
+        all.add(id);
+        names.add(text.name, text.displayName);
+    }
+
+    private void delete(Long id) {
+        IndexedText text = documents.remove(id);
+        if (text == null) {
+            return;
+        }
+        names.remove(text.name);
+        all.remove(id);
+        Set<Long> grams = grams(text.name);
+        grams.addAll(grams(text.description));
+        for (long gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add((long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    @EqualsAndHashCode
+    private static final class IndexedText {
+
+        private final String name;
+        private final String description;
+        private final String displayName;
+
+        private IndexedText(String name, String description, String displayName) {
+            this.name = name;
+            this.description = description;
+            this.displayName = displayName;
+        }
+
+        private static IndexedText of(String name, String description) {
+            return new IndexedText(SearchText.normalize(name), SearchText.normalize(description), name.trim());
+        }
+
+        private boolean contains(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+    }
+}
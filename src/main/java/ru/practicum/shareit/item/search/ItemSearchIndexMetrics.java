@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndexMetrics implements MeterBinder {
+
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.items.search.documents", itemSearchIndex, ItemSearchIndex::size)
+                .description("Available items in the search index")
+                .register(registry);
+        Gauge.builder("shareit.items.suggest.trie.nodes", itemSearchIndex, ItemSearchIndex::suggestNodes)
+                .description("Nodes of the item name completion trie")
+                .register(registry);
+        Gauge.builder("shareit.items.suggest.trie.memory", itemSearchIndex, ItemSearchIndex::suggestBytes)
+                .description("Estimated heap used by the item name completion trie")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("shareit.items.search.cache.size", itemSearchCache, ItemSearchCache::size)
+                .description("Cached search pages")
+                .register(registry);
+        cacheCounter(registry, "hit", ItemSearchCache::hits);
+        cacheCounter(registry, "miss", ItemSearchCache::misses);
+        cacheCounter(registry, "eviction", ItemSearchCache::evictions);
+        cacheCounter(registry, "invalidation", ItemSearchCache::invalidations);
+    }
+
+    private void cacheCounter(MeterRegistry registry, String result, ToDoubleFunction<ItemSearchCache> count) {
+        FunctionCounter.builder("shareit.items.search.cache", itemSearchCache, count)
+                .tag("result", result)
+                .description("Search cache lookups and removals")
+                .register(registry);
+    }
+}
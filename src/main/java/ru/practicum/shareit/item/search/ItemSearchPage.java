@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ItemSearchPage {
+
+    private final List<ItemDto> items;
+
+    private final String nextCursor;
+
+    public static ItemSearchPage empty() {
+        return new ItemSearchPage(List.of(), null);
+    }
+}
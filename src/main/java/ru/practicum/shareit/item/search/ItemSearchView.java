@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public final class ItemSearchView {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String description;
+}
@@ -0,0 +1,253 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Radix trie over normalized item names. Every node keeps the largest name weight of its subtree,
+ * so completion is a best-first walk that never opens a subtree which cannot beat the current results.
+ */
+final class NameTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int NODE_BYTES = 40;
+    private static final int STRING_BYTES = 40;
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingInt((Candidate candidate) -> -candidate.weight)
+            .thenComparing(candidate -> candidate.key);
+
+    private final Node root = new Node("");
+    private int nodes = 1;
+
+    void add(String key, String display) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int position = 0;
+        path.push(node);
+        while (position < key.length()) {
+            int index = node.find(key.charAt(position));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(position));
+                node.insert(-index - 1, leaf);
+                nodes++;
+                node = leaf;
+                path.push(node);
+                position = key.length();
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[]{child};
+                split.maxWeight = child.maxWeight;
+                node.children[index] = split;
+                nodes++;
+                child = split;
+            }
+            node = child;
+            path.push(node);
+            position += common;
+        }
+        node.weight++;
+        node.display = display;
+        updateMaxWeight(path);
+    }
+
+    void remove(String key) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int position = 0;
+        path.push(node);
+        while (position < key.length()) {
+            int index = node.find(key.charAt(position));
+            if (index < 0 || !key.startsWith(node.children[index].label, position)) {
+                return;
+            }
+            node = node.children[index];
+            position += node.label.length();
+            path.push(node);
+        }
+        if (node.weight == 0) {
+            return;
+        }
+        node.weight--;
+        if (node.weight == 0 && node != root) {
+            node.display = null;
+            compact(path);
+        }
+        updateMaxWeight(path);
+    }
+
+    List<String> complete(String prefix, int limit) {
+        Node node = root;
+        StringBuilder key = new StringBuilder();
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = node.find(prefix.charAt(position));
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+            int common = commonPrefix(node.label, prefix, position);
+            if (common < node.label.length() && position + common < prefix.length()) {
+                return List.of();
+            }
+            key.append(node.label);
+            position += common;
+        }
+        List<String> result = new ArrayList<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+        queue.add(new Candidate(node, key.toString(), node.maxWeight, false));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.terminal) {
+                result.add(candidate.node.display);
+                continue;
+            }
+            if (candidate.node.weight > 0) {
+                queue.add(new Candidate(candidate.node, candidate.key, candidate.node.weight, true));
+            }
+            for (Node child : candidate.node.children) {
+                queue.add(new Candidate(child, candidate.key + child.label, child.maxWeight, false));
+            }
+        }
+        return result;
+    }
+
+    int nodes() {
+        return nodes;
+    }
+
+    long estimatedBytes() {
+        long bytes = 0;
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            bytes += NODE_BYTES + STRING_BYTES + 2L * node.label.length();
+            if (node.children.length > 0) {
+                bytes += OBJECT_HEADER_BYTES + (long) REFERENCE_BYTES * node.children.length;
+            }
+            if (node.display != null) {
+                bytes += STRING_BYTES + 2L * node.display.length();
+            }
+            for (Node child : node.children) {
+                stack.push(child);
+            }
+        }
+        return bytes;
+    }
+
+    private void compact(Deque<Node> path) {
+        Node node = path.pop();
+        Node parent = path.peek();
+        if (node.children.length == 0) {
+            parent.delete(node);
+            nodes--;
+            if (parent != root && parent.weight == 0 && parent.children.length == 1) {
+                path.pop();
+                merge(path.peek(), parent);
+            }
+        } else if (node.children.length == 1) {
+            merge(parent, node);
+        } else {
+            path.push(node);
+        }
+    }
+
+    private void merge(Node parent, Node node) {
+        Node child = node.children[0];
+        child.label = node.label + child.label;
+        parent.children[parent.find(node.label.charAt(0))] = child;
+        nodes--;
+    }
+
+    private static void updateMaxWeight(Deque<Node> path) {
+        for (Node node : path) {
+            int max = node.weight;
+            for (Node child : node.children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            node.maxWeight = max;
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private int weight;
+        private int maxWeight;
+        private String display;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private int find(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char current = children[middle].label.charAt(0);
+                if (current < first) {
+                    low = middle + 1;
+                } else if (current > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insert(int index, Node child) {
+            Node[] expanded = new Node[children.length + 1];
+            System.arraycopy(children, 0, expanded, 0, index);
+            expanded[index] = child;
+            System.arraycopy(children, index, expanded, index + 1, children.length - index);
+            children = expanded;
+        }
+
+        private void delete(Node child) {
+            int index = find(child.label.charAt(0));
+            Node[] shrunk = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = children.length == 1 ? NO_CHILDREN : shrunk;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final Node node;
+        private final String key;
+        private final int weight;
+        private final boolean terminal;
+
+        private Candidate(Node node, String key, int weight, boolean terminal) {
+            this.node = node;
+            this.key = key;
+            this.weight = weight;
+            this.terminal = terminal;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of item ids backed by a primitive array. Item ids grow monotonically,
+ * so the common insert is an append.
+ */
+final class PostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MERGE_RATIO = 16;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    boolean add(long id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return true;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    boolean remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Position of the first id greater than the given one, {@link #size()} when there is none.
+     */
+    int indexAfter(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    long[] retain(long[] candidates) {
+        long[] result = new long[candidates.length];
+        int count = 0;
+        if (candidates.length * MERGE_RATIO < size) {
+            for (long candidate : candidates) {
+                if (Arrays.binarySearch(ids, 0, size, candidate) >= 0) {
+                    result[count++] = candidate;
+                }
+            }
+        } else {
+            int i = 0;
+            for (long candidate : candidates) {
+                while (i < size && ids[i] < candidate) {
+                    i++;
+                }
+                if (i < size && ids[i] == candidate) {
+                    result[count++] = candidate;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.exception.BadEntityException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class SearchCursor {
+
+    private SearchCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadEntityException("Некорректный курсор поиска");
+        }
+    }
+}
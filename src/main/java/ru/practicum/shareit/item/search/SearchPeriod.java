@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Period an item found by search has to be free in.
+ */
+@Getter
+@AllArgsConstructor
+public final class SearchPeriod {
+
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Locale;
+
+public final class SearchText {
+
+    private SearchText() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k best scored ids in a min-heap, so selecting from n matches costs O(n log k).
+ * Equal scores are ordered by id.
+ */
+public final class TopK {
+
+    private static final Comparator<long[]> WORST_FIRST = Comparator
+            .<long[]>comparingLong(entry -> entry[1])
+            .thenComparingLong(entry -> -entry[0]);
+
+    private final int k;
+    private final PriorityQueue<long[]> heap;
+
+    public TopK(int k) {
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.min(k, 1024) + 1, WORST_FIRST);
+    }
+
+    public void offer(long id, int score) {
+        if (k <= 0 || score <= 0) {
+            return;
+        }
+        long[] entry = {id, score};
+        if (heap.size() < k) {
+            heap.add(entry);
+        } else if (WORST_FIRST.compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Lowest kept score, zero while nothing is kept.
+     */
+    public int lowestScore() {
+        return heap.isEmpty() ? 0 : (int) heap.peek()[1];
+    }
+
+    public List<Long> ids() {
+        List<long[]> entries = new ArrayList<>(heap);
+        entries.sort(Collections.reverseOrder(WORST_FIRST));
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (long[] entry : entries) {
+            ids.add(entry[0]);
+        }
+        return ids;
+    }
+}
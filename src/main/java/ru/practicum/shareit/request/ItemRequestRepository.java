@@ -1,7 +1,7 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -14,7 +14,8 @@ import java.util.List;
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>, JpaSpecificationExecutor<ItemRequest> {
 
     @Query("select ir from ItemRequest ir where ir.requester.id <> :id order by ir.created desc")
-    Page<ItemRequest> getAllCreatedByOtherOrderByCreatedDesc(Long id, Pageable page);
+    Slice<ItemRequest> getAllCreatedByOtherOrderByCreatedDesc(Long id, Pageable page);
 
+    @Query("select ir from ItemRequest ir where ir.requester.id = :requesterId order by ir.created desc")
     List<ItemRequest> getAllByRequesterIdOrderByCreatedDesc(Long requesterId);
 }
@@ -50,24 +50,16 @@ public class ItemRequestService {
     }
 
     public ItemRequestWithOfferDto getTargetRequest(Long userId, Long requestId) {
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден");
-        }
-        if (itemRequestRepository.findById(requestId).isEmpty()) {
-            throw new NotFoundException("Запрос не найден");
-        }
-        ItemRequest request = itemRequestRepository.findById(requestId).get();
-        UserDto requesterDto = userMapper.usertoUserDto(userRepository.findById(userId).get());
+        UserDto requesterDto = getUserDto(userId);
+        ItemRequest request = itemRequestRepository.findById(requestId)
+                .orElseThrow(() -> new NotFoundException("Запрос не найден"));
         List<ItemDto> items = itemService.getItemsByRequestId(request.getId());
         return itemRequestMapper.itemRequestToRequestWithOfferDto(request, requesterDto, items);
 
     }
 
     public List<ItemRequestWithOfferDto> getRequests(Long userId) {
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден");
-        }
-        UserDto requestOwner = userMapper.usertoUserDto(userRepository.findById(userId).get());
+        UserDto requestOwner = getUserDto(userId);
         List<ItemRequest> requests = itemRequestRepository.getAllByRequesterIdOrderByCreatedDesc(userId);
         List<Long> requestId = requests.stream()
                 .map(ItemRequest::getId)
@@ -93,10 +85,7 @@ public class ItemRequestService {
     }
 
     public List<ItemRequestWithOfferDto> getPageableRequests(Long userId, Pageable pageable) {
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден");
-        }
-        UserDto requestOwner = userMapper.usertoUserDto(userRepository.findById(userId).get());
+        UserDto requestOwner = getUserDto(userId);
         List<ItemRequest> requests = itemRequestRepository
                 .getAllCreatedByOtherOrderByCreatedDesc(userId, pageable)
                 .getContent()
@@ -117,4 +106,10 @@ public class ItemRequestService {
         }
         return requestWithOfferDtos;
     }
+
+    private UserDto getUserDto(Long userId) {
+        return userRepository.findViewById(userId)
+                .map(userMapper::userViewToUserDto)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    }
 }
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves every id sequence past the ids already in its table. Databases created before the sequences
+ * existed hold ids from identity columns, and a sequence starting at 1 would hand them out again.
+ * Runs while the context starts, before any request can take an id.
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@RequiredArgsConstructor
+public class IdSequenceInitializer {
+
+    private static final int ALLOCATION_SIZE = 50;
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("users", "users_seq");
+        SEQUENCES.put("requests", "requests_seq");
+        SEQUENCES.put("offers", "offers_seq");
+        SEQUENCES.put("items", "items_seq");
+        SEQUENCES.put("bookings", "bookings_seq");
+        SEQUENCES.put("comments", "comments_seq");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void advance() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            if (maxId == null || maxId == 0) {
+                return;
+            }
+            // the pooled optimizer turns a sequence value v into the ids v - 49 .. v
+            Long next = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence), Long.class);
+            if (next == null || next - ALLOCATION_SIZE < maxId) {
+                jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + ALLOCATION_SIZE));
+                log.info("Последовательность {} сдвинута за максимальный id {} таблицы {}", sequence, maxId, table);
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.user;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserView;
 import ru.practicum.shareit.user.model.User;
 
 @Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE, componentModel = "spring")
@@ -11,4 +12,6 @@ public interface UserMapper {
     User userDtotoUser(UserDto userDto);
 
     UserDto usertoUserDto(User user);
+
+    UserDto userViewToUserDto(UserView userView);
 }
@@ -4,6 +4,10 @@ import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchView;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
@@ -20,15 +24,18 @@ public class UserService {
 
     private final UserMapper userMapper;
 
+    private final ItemRepository itemRepository;
+
+    private final ItemSearchIndex itemSearchIndex;
+
+    private final ItemSearchCache itemSearchCache;
+
     public UserDto createUser(UserDto userDto) {
         return userMapper.usertoUserDto(userRepository.save(userMapper.userDtotoUser(userDto)));
     }
 
     public UserDto updateUser(Long id, Map<String, Object> updates) {
-        if (userRepository.findById(id).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден в системе");
-        }
-        User user = userRepository.findById(id).get();
+        User user = getTargetUser(id);
         if (updates.containsKey("email")) {
             user.setEmail(String.valueOf(updates.get("email")));
         }
@@ -40,20 +47,21 @@ public class UserService {
     }
 
     public UserDto deleteUser(Long id) {
-        if (userRepository.findById(id).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден в системе");
+        User deletedUser = getTargetUser(id);
+        // the items go with their owner through the foreign key, past ItemService.deleteItem
+        List<ItemSearchView> items = itemRepository.findSearchViewsByOwnerId(id);
+        userRepository.delete(deletedUser);
+        for (ItemSearchView item : items) {
+            itemSearchIndex.remove(item.getId());
+            itemSearchCache.invalidate(item.getName(), item.getDescription(), null, null);
         }
-        User deletedUser = userRepository.findById(id).get();
-        userRepository.deleteById(id);
         return userMapper.usertoUserDto(deletedUser);
     }
 
 
     public User getTargetUser(Long id) {
-        if (userRepository.findById(id).isEmpty()) {
-            throw new NotFoundException("Пользователь не найден в системе");
-        }
-        return userRepository.findById(id).get();
+        return userRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден в системе"));
     }
 
     public List<UserDto> getAllUsers() {
@@ -63,6 +71,8 @@ public class UserService {
     }
 
     public UserDto getUserDto(Long id) {
-        return userMapper.usertoUserDto(getTargetUser(id));
+        return userRepository.findViewById(id)
+                .map(userMapper::userViewToUserDto)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден в системе"));
     }
 }
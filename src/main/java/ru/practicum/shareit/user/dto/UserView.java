@@ -0,0 +1,10 @@
+package ru.practicum.shareit.user.dto;
+
+public interface UserView {
+
+    Long getId();
+
+    String getName();
+
+    String getEmail();
+}
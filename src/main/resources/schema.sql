@@ -1,18 +1,25 @@
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists requests_seq start with 1 increment by 50;
+create sequence if not exists offers_seq start with 1 increment by 50;
+create sequence if not exists items_seq start with 1 increment by 50;
+create sequence if not exists bookings_seq start with 1 increment by 50;
+create sequence if not exists comments_seq start with 1 increment by 50;
+
 create table if not exists users (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    id bigint PRIMARY KEY NOT NULL,
     name varchar(255) NOT NULL,
     email varchar(512) UNIQUE NOT NULL
 );
 
 create table if not exists requests (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id bigint PRIMARY KEY,
     description varchar(512) NOT NULL,
     requester_id bigint NOT NULL,
     created_date timestamp without time zone NOT NULL
 );
 
 create table if not exists offers (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id bigint PRIMARY KEY,
     request_id bigint NOT NULL,
     requester_id bigint NOT NULL,
     item_id bigint NOT NULL
@@ -20,7 +27,7 @@ create table if not exists offers (
 );
 
 create table if not exists items (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id bigint PRIMARY KEY,
     name varchar(255) NOT NULL,
     description varchar(255) NOT NULL,
     is_available boolean NOT NULL,
@@ -29,7 +36,7 @@ create table if not exists items (
 );
 
 create table if not exists bookings (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id bigint PRIMARY KEY,
     start_date timestamp without time zone NOT NULL,
     end_date timestamp without time zone NOT NULL,
     item_id bigint,
@@ -38,13 +45,54 @@ create table if not exists bookings (
 );
 
 create table if not exists comments (
-    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id bigint PRIMARY KEY,
     text varchar(512) NOT NULL,
     item_id bigint,
     author_id bigint,
     created_date timestamp without time zone NOT NULL
 );
 
+alter TABLE items
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+alter TABLE bookings
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+alter TABLE bookings
+    ADD COLUMN IF NOT EXISTS owner_id bigint;
+
+create index if not exists bookings_owner_start_idx on bookings (owner_id, start_date desc);
+
+alter TABLE bookings
+    ADD COLUMN IF NOT EXISTS created_date timestamp without time zone;
+
+create index if not exists bookings_status_start_idx on bookings (status, start_date);
+
+create table if not exists bookings_archive (
+    id bigint PRIMARY KEY,
+    start_date timestamp without time zone NOT NULL,
+    end_date timestamp without time zone NOT NULL,
+    item_id bigint,
+    booker_id bigint,
+    owner_id bigint,
+    status varchar(12),
+    version bigint NOT NULL DEFAULT 0,
+    created_date timestamp without time zone
+);
+
+create index if not exists bookings_archive_booker_start_idx on bookings_archive (booker_id, start_date desc);
+create index if not exists bookings_archive_owner_start_idx on bookings_archive (owner_id, start_date desc);
+create index if not exists bookings_archive_item_booker_idx on bookings_archive (item_id, booker_id);
+
+create index if not exists bookings_item_status_start_idx on bookings (item_id, status, start_date);
+create index if not exists bookings_booker_start_idx on bookings (booker_id, start_date desc);
+create index if not exists bookings_end_idx on bookings (end_date);
+create index if not exists items_owner_idx on items (owner_id, id);
+create index if not exists items_request_idx on items (request_id);
+create index if not exists comments_item_idx on comments (item_id);
+create index if not exists requests_requester_created_idx on requests (requester_id, created_date desc);
+create index if not exists requests_created_idx on requests (created_date desc);
+
 alter TABLE items
     drop CONSTRAINT IF EXISTS fk_items_to_users;
 
@@ -68,6 +116,22 @@ alter TABLE bookings
         ON delete CASCADE ON update CASCADE;
 
 
+alter TABLE bookings_archive
+    drop CONSTRAINT IF EXISTS fk_bookings_archive_to_items;
+
+alter TABLE bookings_archive
+    ADD CONSTRAINT fk_bookings_archive_to_items FOREIGN KEY (item_id) REFERENCES items (id)
+        ON delete CASCADE ON update CASCADE;
+
+
+alter TABLE bookings_archive
+    drop CONSTRAINT IF EXISTS fk_bookings_archive_to_users;
+
+alter TABLE bookings_archive
+    ADD CONSTRAINT fk_bookings_archive_to_users FOREIGN KEY (booker_id) REFERENCES users (id)
+        ON delete CASCADE ON update CASCADE;
+
+
 alter TABLE comments
     drop CONSTRAINT IF EXISTS fk_comments_to_items;
 
@@ -0,0 +1,225 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+
+import javax.transaction.Transactional;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+
+@Slf4j
+@Transactional
+@SpringBootTest(properties = {"db.name=test", "spring.jpa.properties.hibernate.session_factory"
+        + ".statement_inspector=ru.practicum.shareit.QueryPlanTest$Recorder"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class QueryPlanTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 10, 12, 0);
+
+    /**
+     * Table access comment in an H2 plan. It names the index and, when only a range of the index is read,
+     * the condition after a colon.
+     */
+    private static final Pattern ACCESS = Pattern.compile("/\\* PUBLIC\\.([A-Za-z0-9_.]+)(:[^*]*)? \\*/");
+
+    /**
+     * Queries that read a whole table on purpose, with the reason.
+     */
+    private static final Map<String, String> SCANS = Map.of(
+            "copyItemOwners", "разовая миграция при старте, сверяет каждое бронирование с его вещью",
+            "findNamesByPrefix", "lower(name) like 'x%' требует индекса по выражению, подсказки отдает NameTrie",
+            "findByNameOrDescription", "поиск подстроки не использует b-tree, его обслуживает ItemSearchIndex",
+            "findFreeByNameOrDescription", "поиск подстроки не использует b-tree, его обслуживает ItemSearchIndex",
+            "getAllCreatedByOtherOrderByCreatedDesc", "requester_id <> ? подходит почти всем строкам, "
+                    + "страница читается по requests_created_idx до заполнения",
+            "findArchivedIds", "читает одну строку, чтобы узнать, пуст ли архив");
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            users.add(new Object[]{id, "user " + id, "plan" + id + "@shareit.ru"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, name, email) values (?, ?, ?)", users);
+        List<Object[]> requests = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            requests.add(new Object[]{id, "нужна дрель " + id, id % 50 + 1, Timestamp.valueOf(NOW.minusHours(id))});
+        }
+        jdbcTemplate.batchUpdate("insert into requests (id, description, requester_id, created_date) "
+                + "values (?, ?, ?, ?)", requests);
+        List<Object[]> items = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            items.add(new Object[]{id, "дрель " + id, "ударная", id % 3 != 0, id % 50 + 1,
+                    id % 4 == 0 ? id % 200 + 1 : null});
+        }
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner_id, request_id) "
+                + "values (?, ?, ?, ?, ?, ?)", items);
+        List<Object[]> bookings = new ArrayList<>();
+        BookingStatus[] statuses = BookingStatus.values();
+        for (long id = 1; id <= 5_000; id++) {
+            long itemId = id % 500 + 1;
+            LocalDateTime start = NOW.plusHours(id % 2_000 - 1_000);
+            bookings.add(new Object[]{id, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(5)), itemId,
+                    id % 49 + 1, itemId % 50 + 1, statuses[(int) (id % statuses.length)].name(),
+                    Timestamp.valueOf(start.minusDays(2))});
+        }
+        String columns = "(id, start_date, end_date, item_id, booker_id, owner_id, status, created_date) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.batchUpdate("insert into bookings " + columns, bookings);
+        jdbcTemplate.batchUpdate("insert into bookings_archive " + columns, bookings.subList(0, 1_000));
+        List<Object[]> comments = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            comments.add(new Object[]{id, "отлично", id % 500 + 1, id % 50 + 1, Timestamp.valueOf(NOW)});
+        }
+        jdbcTemplate.batchUpdate("insert into comments (id, text, item_id, author_id, created_date) "
+                + "values (?, ?, ?, ?, ?)", comments);
+    }
+
+    @Test
+    void repositoryQueries_ShouldUseIndexes() throws Exception {
+        List<String> failures = new ArrayList<>();
+        failures.addAll(explainAll(BookingRepository.class, bookingRepository));
+        failures.addAll(explainAll(ItemRepository.class, itemRepository));
+        failures.addAll(explainAll(ItemRequestRepository.class, itemRequestRepository));
+
+        assertThat(String.join("\n", failures), failures, empty());
+    }
+
+    private List<String> explainAll(Class<?> repositoryType, Object repository) throws Exception {
+        List<String> failures = new ArrayList<>();
+        Method[] methods = repositoryType.getDeclaredMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName).thenComparing(Method::getParameterCount));
+        for (Method method : methods) {
+            String name = repositoryType.getSimpleName() + "." + method.getName();
+            Recorder.STATEMENTS.clear();
+            method.invoke(repository, arguments(method));
+            List<String> statements = new ArrayList<>(Recorder.STATEMENTS);
+            assertThat(name, statements, not(empty()));
+            for (String sql : statements) {
+                String plan = explain(sql);
+                log.info("{}:\n{}", name, plan);
+                if (readsWholeTable(plan) && !SCANS.containsKey(method.getName())) {
+                    failures.add(name + " reads a whole table:\n" + plan);
+                }
+            }
+        }
+        return failures;
+    }
+
+    private boolean readsWholeTable(String plan) {
+        Matcher access = ACCESS.matcher(plan);
+        while (access.find()) {
+            if (access.group(1).endsWith(".tableScan") || access.group(2) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    private Object[] arguments(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Type[] genericTypes = method.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = argument(types[i], genericTypes[i], method.getParameters()[i].getName());
+        }
+        return arguments;
+    }
+
+    private Object argument(Class<?> type, Type genericType, String name) {
+        if (type == Long.class || type == long.class) {
+            return 7L;
+        }
+        if (type == int.class || type == Integer.class) {
+            return 10;
+        }
+        if (type == LocalDateTime.class) {
+            return NOW;
+        }
+        if (type == BookingStatus.class) {
+            return BookingStatus.APPROVED;
+        }
+        if (type == String.class) {
+            return name.equals("status") ? BookingStatus.APPROVED.name() : "%дрель%";
+        }
+        if (Pageable.class.isAssignableFrom(type)) {
+            return PageRequest.of(0, 10);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Type element = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            return element == BookingStatus.class
+                    ? List.of(BookingStatus.WAITING, BookingStatus.APPROVED)
+                    : List.of(4_998L, 4_999L, 5_000L);
+        }
+        throw new IllegalArgumentException("Нет тестового значения для параметра " + name + " типа " + type);
+    }
+
+    public static class Recorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.exception.ItemNotOwnedByUserException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Transactional
+@SpringBootTest(properties = {"db.name=test", "shareit.booking.archive.retention=P100D",
+        "shareit.booking.archive.chunk-size=7"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingArchiverTest {
+
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    private BookingArchiver bookingArchiver;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void archive_ShouldKeepListingsAndCommentsUnchanged() {
+        User owner = userRepository.save(User.builder().name("owner").email("archive-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("archive-booker@shareit.ru").build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Random random = new Random(23);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name("item " + i)
+                    .description("description")
+                    .available(true)
+                    .owner(owner)
+                    .build()));
+        }
+        for (int i = 0; i < 150; i++) {
+            // long bookings start before the retention window and end inside it, so both tables interleave
+            LocalDateTime start = now.minusDays(300).plusDays(random.nextInt(32) * 10L);
+            bookingRepository.save(Booking.builder()
+                    .item(items.get(random.nextInt(items.size())))
+                    .booker(booker)
+                    .start(start)
+                    .end(start.plusHours(1 + random.nextInt(24 * 250)))
+                    .status(BookingStatus.values()[random.nextInt(BookingStatus.values().length)])
+                    .build());
+        }
+        bookingRepository.flush();
+        bookingIntervalIndex.rebuild();
+        Map<String, List<Long>> expected = new HashMap<>();
+        for (BookingSearchType type : BookingSearchType.values()) {
+            String state = type.name();
+            expected.put("booker " + state, ids(bookingService.getBookingByState(booker.getId(), state,
+                    PageRequest.of(0, 1000), null)));
+            expected.put("owner " + state, ids(bookingService.getBookingByStateAndOwner(owner.getId(), state,
+                    PageRequest.of(0, 1000), null)));
+        }
+        Integer finished = jdbcTemplate.queryForObject("select count(*) from bookings where end_date < ? "
+                + "and status <> 'WAITING'", Integer.class, now.minusDays(100));
+
+        assertThat(finished, greaterThan(PAGE_SIZE));
+        assertThat(bookingArchiver.archive(), equalTo(finished));
+        assertThat(bookingArchiver.archive(), equalTo(0));
+        assertThat(bookingArchiver.isArchiveUsed(), equalTo(true));
+        assertThat(bookingIntervalIndex.verify(), equalTo(0));
+
+        for (BookingSearchType type : BookingSearchType.values()) {
+            String state = type.name();
+            BiFunction<PageRequest, String, BookingPage> bookerSearch = (pageable, cursor) ->
+                    bookingService.getBookingByState(booker.getId(), state, pageable, cursor);
+            BiFunction<PageRequest, String, BookingPage> ownerSearch = (pageable, cursor) ->
+                    bookingService.getBookingByStateAndOwner(owner.getId(), state, pageable, cursor);
+            assertThat(state, walkByCursor(bookerSearch), equalTo(expected.get("booker " + state)));
+            assertThat(state, walkByOffset(bookerSearch), equalTo(expected.get("booker " + state)));
+            assertThat(state, walkByCursor(ownerSearch), equalTo(expected.get("owner " + state)));
+            assertThat(state, walkByOffset(ownerSearch), equalTo(expected.get("owner " + state)));
+        }
+
+        Long archivedItemId = jdbcTemplate.queryForObject("select item_id from bookings_archive "
+                + "where status = 'APPROVED' limit 1", Long.class);
+        jdbcTemplate.update("delete from bookings where item_id = ?", archivedItemId);
+        CommentDto comment = itemService.addComment(archivedItemId, booker.getId(),
+                CommentDto.builder().text("отличная вещь").build());
+        assertThat(comment.getText(), equalTo("отличная вещь"));
+    }
+
+    @Test
+    void archive_ShouldKeepSingleBookingAndLastBooking() {
+        User owner = userRepository.save(User.builder().name("owner").email("last-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("last-booker@shareit.ru").build());
+        User stranger = userRepository.save(User.builder().name("stranger").email("last-other@shareit.ru").build());
+        Item item = itemRepository.save(Item.builder()
+                .name("палатка")
+                .description("четырехместная")
+                .available(true)
+                .owner(owner)
+                .build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Booking booking = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(now.minusDays(201))
+                .end(now.minusDays(200))
+                .status(BookingStatus.APPROVED)
+                .build());
+        bookingRepository.flush();
+        bookingIntervalIndex.rebuild();
+        ItemBookingDto lastBooking = new ItemBookingDto(booking.getId(), booker.getId());
+        assertThat(itemService.getTargetItem(item.getId(), owner.getId()).getLastBooking(), equalTo(lastBooking));
+
+        assertThat(bookingArchiver.archive(), equalTo(1));
+        entityManager.clear();
+
+        BookingDto archived = bookingService.getBooking(booker.getId(), booking.getId());
+        assertThat(archived.getId(), equalTo(booking.getId()));
+        assertThat(archived.getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(archived.getItem().getId(), equalTo(item.getId()));
+        assertThat(archived.getBooker().getId(), equalTo(booker.getId()));
+        assertThat(bookingService.getBooking(owner.getId(), booking.getId()).getId(), equalTo(booking.getId()));
+        assertThrows(ItemNotOwnedByUserException.class,
+                () -> bookingService.getBooking(stranger.getId(), booking.getId()));
+        assertThrows(NotFoundException.class, () -> bookingService.getBooking(booker.getId(), -1L));
+
+        assertThat(itemService.getTargetItem(item.getId(), owner.getId()).getLastBooking(), equalTo(lastBooking));
+        assertThat(itemService.getItemsByOwnerId(owner.getId(), PageRequest.of(0, 10)).get(0).getLastBooking(),
+                equalTo(lastBooking));
+        assertThat(itemRepository.findBookingsByIdIn(List.of(item.getId()), LocalDateTime.now(),
+                BookingStatus.APPROVED.name()).get(0).getLastBookingId(), equalTo(booking.getId()));
+    }
+
+    private List<Long> walkByCursor(BiFunction<PageRequest, String, BookingPage> search) {
+        List<Long> ids = new ArrayList<>();
+        BookingPage page = search.apply(PageRequest.of(0, PAGE_SIZE), null);
+        ids.addAll(ids(page));
+        while (page.getNextCursor() != null) {
+            page = search.apply(PageRequest.of(0, PAGE_SIZE), page.getNextCursor());
+            ids.addAll(ids(page));
+        }
+        return ids;
+    }
+
+    private List<Long> walkByOffset(BiFunction<PageRequest, String, BookingPage> search) {
+        List<Long> ids = new ArrayList<>();
+        int pageNumber = 0;
+        BookingPage page = search.apply(PageRequest.of(pageNumber, PAGE_SIZE), null);
+        ids.addAll(ids(page));
+        while (page.getNextCursor() != null) {
+            page = search.apply(PageRequest.of(++pageNumber, PAGE_SIZE), null);
+            ids.addAll(ids(page));
+        }
+        return ids;
+    }
+
+    private List<Long> ids(BookingPage page) {
+        return page.getBookings().stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+    }
+}
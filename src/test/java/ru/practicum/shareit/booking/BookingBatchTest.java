@@ -0,0 +1,183 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithId;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"db.name=test"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingBatchTest {
+
+    private static final String OVERLAP_MESSAGE = "Booking can't be made to one item more than one time";
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from bookings");
+        jdbcTemplate.update("delete from items");
+        jdbcTemplate.update("delete from users");
+        bookingIntervalIndex.rebuild();
+    }
+
+    @Test
+    void createBookings_ShouldReportEveryEntry() {
+        User owner = userRepository.save(User.builder().name("owner").email("batch-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("batch-booker@shareit.ru").build());
+        Item drill = itemRepository.save(createItem(owner));
+        Item bike = itemRepository.save(createItem(owner));
+        Item own = itemRepository.save(createItem(booker));
+        bookingRepository.save(Booking.builder()
+                .item(bike)
+                .booker(owner)
+                .start(at(50))
+                .end(at(60))
+                .status(BookingStatus.APPROVED)
+                .build());
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(List.of(
+                createBooking(drill.getId(), at(10), at(20)),
+                createBooking(drill.getId(), at(15), at(30)),
+                createBooking(bike.getId(), at(40), at(51)),
+                createBooking(bike.getId(), at(60), at(70)),
+                createBooking(-1L, at(10), at(20)),
+                createBooking(own.getId(), at(10), at(20)),
+                createBooking(drill.getId(), at(-40), at(-30)),
+                createBooking(drill.getId(), at(20), at(25))), booker.getId());
+
+        assertThat(results.size(), equalTo(8));
+        assertThat(results.get(0).getBooking(), notNullValue());
+        assertThat(results.get(1).getError(), equalTo(OVERLAP_MESSAGE));
+        assertThat(results.get(2).getError(), equalTo(OVERLAP_MESSAGE));
+        assertThat(results.get(3).getBooking().getStart(), equalTo(at(60)));
+        assertThat(results.get(4).getError(), equalTo("Предмет не найден в системе"));
+        assertThat(results.get(5).getError(), equalTo("Owner want to book his/ her Item"));
+        assertThat(results.get(6).getError(), equalTo("Booking start should be less than End and not be in past"));
+        assertThat(results.get(7).getBooking().getStatus(), equalTo(BookingStatus.WAITING));
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).getIndex(), equalTo(i));
+        }
+        assertThat(jdbcTemplate.queryForObject("select count(*) from bookings where booker_id = ?", Integer.class,
+                booker.getId()), equalTo(3));
+        assertThat(bookingIntervalIndex.overlaps(drill.getId(), at(12), at(13)), equalTo(true));
+        assertThrows(BadEntityException.class,
+                () -> bookingService.createBooking(createBooking(drill.getId(), at(21), at(22)), booker.getId()));
+    }
+
+    @Test
+    void createBookings_ShouldMatchGreedyOrderByStart() {
+        User owner = userRepository.save(User.builder().name("owner").email("greedy-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("greedy-booker@shareit.ru").build());
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(itemRepository.save(createItem(owner)));
+        }
+        Random random = new Random(16);
+        List<Booking> stored = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int from = random.nextInt(400);
+            stored.add(bookingRepository.save(Booking.builder()
+                    .item(items.get(random.nextInt(items.size())))
+                    .booker(owner)
+                    .start(at(from))
+                    .end(at(from + 1 + random.nextInt(10)))
+                    .status(BookingStatus.values()[random.nextInt(BookingStatus.values().length)])
+                    .build()));
+        }
+        List<BookingDtoWithId> entries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(400);
+            entries.add(createBooking(items.get(random.nextInt(items.size())).getId(), at(from),
+                    at(from + 1 + random.nextInt(10))));
+        }
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(entries, booker.getId());
+
+        List<BookingDtoWithId> taken = stored.stream()
+                .filter(b -> b.getStatus() == BookingStatus.WAITING || b.getStatus() == BookingStatus.APPROVED)
+                .map(b -> createBooking(b.getItem().getId(), b.getStart(), b.getEnd()))
+                .collect(Collectors.toList());
+        List<Integer> order = IntStream.range(0, entries.size()).boxed()
+                .sorted(Comparator.comparing((Integer i) -> entries.get(i).getItemId())
+                        .thenComparing(i -> entries.get(i).getStart()))
+                .collect(Collectors.toList());
+        for (int i : order) {
+            BookingDtoWithId entry = entries.get(i);
+            boolean free = taken.stream().noneMatch(b -> b.getItemId().equals(entry.getItemId())
+                    && b.getStart().isBefore(entry.getEnd()) && b.getEnd().isAfter(entry.getStart()));
+            if (free) {
+                taken.add(entry);
+                assertThat(results.get(i).getBooking(), notNullValue());
+            } else {
+                assertThat(results.get(i).getBooking(), nullValue());
+                assertThat(results.get(i).getError(), equalTo(OVERLAP_MESSAGE));
+            }
+        }
+    }
+
+    private LocalDateTime at(int hours) {
+        return start.plusHours(hours);
+    }
+
+    private Item createItem(User owner) {
+        return Item.builder()
+                .name("дрель")
+                .description("ударная")
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+
+    private BookingDtoWithId createBooking(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return BookingDtoWithId.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(end)
+                .build();
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingDtoWithId;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Slf4j
+@SpringBootTest(properties = {"db.name=test"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 400;
+    private static final int ITEMS = 40;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from bookings");
+        jdbcTemplate.update("delete from items");
+        jdbcTemplate.update("delete from users");
+        bookingIntervalIndex.rebuild();
+    }
+
+    @Test
+    void createBooking_OverlappingRequestsShouldKeepExactlyOne() throws Exception {
+        User owner = userRepository.save(User.builder().name("owner").email("race-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("race-booker@shareit.ru").build());
+        Item item = itemRepository.save(createItem(owner));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        List<BookingDtoWithId> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(createBooking(item, start.plusMinutes(i % 30), start.plusHours(2)));
+        }
+        int created = run(requests, booker.getId(), "one item");
+
+        assertThat(created, equalTo(1));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from bookings where item_id = ?", Integer.class,
+                item.getId()), equalTo(1));
+    }
+
+    @Test
+    void createBooking_DifferentItemsShouldNotBlockEachOther() throws Exception {
+        User owner = userRepository.save(User.builder().name("owner").email("stripe-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("stripe-booker@shareit.ru").build());
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(itemRepository.save(createItem(owner)));
+        }
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        List<BookingDtoWithId> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            LocalDateTime slot = start.plusDays(i / ITEMS);
+            requests.add(createBooking(items.get(i % ITEMS), slot, slot.plusHours(2)));
+        }
+
+        assertThat(run(requests, booker.getId(), "distinct slots"), equalTo(REQUESTS));
+    }
+
+    @Test
+    void changeBookingStatus_ParallelApprovalsShouldApplyOnce() throws Exception {
+        User owner = userRepository.save(User.builder().name("owner").email("approve-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("approve-booker@shareit.ru").build());
+        Item item = itemRepository.save(createItem(owner));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking booking = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(2))
+                .status(BookingStatus.WAITING)
+                .build());
+
+        // every request gets its own session, as open-in-view gives the web layer
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS * 4; i++) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    EntityManager entityManager = entityManagerFactory.createEntityManager();
+                    TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                            new EntityManagerHolder(entityManager));
+                    try {
+                        bookingService.changeBookingStatus(booking.getId(), true, owner.getId());
+                        approved.incrementAndGet();
+                    } catch (ConflictException e) {
+                        conflicts.incrementAndGet();
+                    } catch (BadEntityException e) {
+                        // the approval has already been committed
+                    } finally {
+                        TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+                        entityManager.close();
+                    }
+                    return null;
+                }));
+            }
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("parallel approvals: {} approved, {} conflicts", approved.get(), conflicts.get());
+
+        assertThat(approved.get(), equalTo(1));
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getVersion(), equalTo(1L));
+    }
+
+    private int run(List<BookingDtoWithId> requests, Long bookerId, String scenario) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (BookingDtoWithId request : requests) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    try {
+                        bookingService.createBooking(request, bookerId);
+                        created.incrementAndGet();
+                    } catch (BadEntityException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long startNanos = System.nanoTime();
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            log.info("{}: {} requests, {} created, {} rejected, {} requests/s", scenario, requests.size(),
+                    created.get(), rejected.get(), Math.round(requests.size() / seconds));
+        } finally {
+            executor.shutdownNow();
+        }
+        return created.get();
+    }
+
+    private Item createItem(User owner) {
+        return Item.builder()
+                .name("дрель")
+                .description("ударная")
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+
+    private BookingDtoWithId createBooking(Item item, LocalDateTime start, LocalDateTime end) {
+        return BookingDtoWithId.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(end)
+                .build();
+    }
+}
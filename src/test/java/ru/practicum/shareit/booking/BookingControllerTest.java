@@ -9,7 +9,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithId;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -20,12 +22,15 @@ import java.util.List;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -66,7 +71,8 @@ class BookingControllerTest {
 
         BookingDto bookingDto = createBookingDto();
         List<BookingDto> expectedItems = List.of(bookingDto);
-        when(bookingService.getBookingByState(anyLong(), any(), any())).thenReturn(expectedItems);
+        when(bookingService.getBookingByState(anyLong(), any(), any(), any()))
+                .thenReturn(new BookingPage(expectedItems, null));
         mockMvc.perform(get("/bookings")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -83,6 +89,24 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].id").value(equalTo(bookingDto.getId()), Long.class));
     }
 
+    @Test
+    void getItemsByStateAndOwner_ShouldPassCursorAndExposeNextOne() throws Exception {
+        BookingDto bookingDto = createBookingDto();
+        when(bookingService.getBookingByStateAndOwner(anyLong(), any(), any(), eq("first")))
+                .thenReturn(new BookingPage(List.of(bookingDto), "second"));
+        mockMvc.perform(get("/bookings/owner")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.ALL)
+                        .param("size", "1")
+                        .param("cursor", "first")
+                        .header("X-Sharer-User-Id", "1")
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "second"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(equalTo(bookingDto.getId()), Long.class));
+    }
+
     @Test
     void create_StandardBehavior() throws Exception {
         BookingDto bookingDto = createBookingDto();
@@ -101,6 +125,34 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.id").value(equalTo(bookingDto.getId()), Long.class));
     }
 
+    @Test
+    void createBatch_ShouldReportEveryEntry() throws Exception {
+        BookingDto bookingDto = createBookingDto();
+        BookingDtoWithId entry = BookingDtoWithId.builder()
+                .itemId(1L)
+                .start(dateTime.plusDays(1))
+                .end(dateTime.plusDays(2))
+                .build();
+        when(bookingService.createBookings(any(), anyLong())).thenReturn(List.of(
+                BookingBatchResultDto.builder().index(0).booking(bookingDto).build(),
+                BookingBatchResultDto.builder().index(1).error("Booking can't be made to one item more than one time")
+                        .build()));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(entry, entry)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].booking.id").value(equalTo(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].error", nullValue()))
+                .andExpect(jsonPath("$[1].index", equalTo(1)))
+                .andExpect(jsonPath("$[1].booking", nullValue()))
+                .andExpect(jsonPath("$[1].error", equalTo("Booking can't be made to one item more than one time")));
+    }
+
     @Test
     void update_StandardBehavior() throws Exception {
         BookingDto bookingDtoWithUpdates = createBookingDtoApproved();
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Transactional
+@SpringBootTest(properties = {"db.name=test", "shareit.booking.expiry.chunk-size=2"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingExpiryTest {
+
+    @Autowired
+    private BookingExpiry bookingExpiry;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void expire_ShouldMoveStaleWaitingBookingsInChunks() {
+        User owner = userRepository.save(User.builder().name("owner").email("expiry-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("expiry-booker@shareit.ru").build());
+        Item item = itemRepository.save(createItem(owner));
+        Item other = itemRepository.save(createItem(owner));
+        LocalDateTime now = LocalDateTime.now();
+
+        Booking started = save(item, booker, now.minusHours(1), BookingStatus.WAITING, null);
+        Booking unanswered = save(item, booker, now.plusDays(3), BookingStatus.WAITING, now.minusDays(8));
+        Booking fresh = save(item, booker, now.plusDays(5), BookingStatus.WAITING, null);
+        Booking approved = save(item, booker, now.minusDays(2), BookingStatus.APPROVED, null);
+        Booking otherStarted = save(other, booker, now.minusHours(2), BookingStatus.WAITING, null);
+        double expiredBefore = meterRegistry.get("shareit.bookings.expired").counter().count();
+        long chunksBefore = meterRegistry.get("shareit.bookings.expiry.chunk").timer().count();
+
+        assertThat(bookingExpiry.expire(), equalTo(3));
+        assertThat(bookingExpiry.expire(), equalTo(0));
+
+        assertThat(statusOf(started), equalTo("EXPIRED"));
+        assertThat(statusOf(unanswered), equalTo("EXPIRED"));
+        assertThat(statusOf(otherStarted), equalTo("EXPIRED"));
+        assertThat(statusOf(fresh), equalTo("WAITING"));
+        assertThat(statusOf(approved), equalTo("APPROVED"));
+        assertThat(bookingRepository.findById(unanswered.getId()).orElseThrow().getVersion(), equalTo(1L));
+        assertThat(bookingIntervalIndex.overlaps(item.getId(), unanswered.getStart(), unanswered.getEnd()),
+                equalTo(false));
+        assertThat(bookingIntervalIndex.overlaps(item.getId(), fresh.getStart(), fresh.getEnd()), equalTo(true));
+        assertThat(meterRegistry.get("shareit.bookings.expired").counter().count() - expiredBefore, equalTo(3.0));
+        assertThat(meterRegistry.get("shareit.bookings.expiry.chunk").timer().count() - chunksBefore,
+                equalTo(3L));
+
+        Assertions.assertThrows(BadEntityException.class,
+                () -> bookingService.changeBookingStatus(unanswered.getId(), true, owner.getId()));
+    }
+
+    private Booking save(Item item, User booker, LocalDateTime start, BookingStatus status, LocalDateTime created) {
+        Booking booking = bookingRepository.saveAndFlush(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusDays(1))
+                .status(status)
+                .created(created)
+                .build());
+        bookingIntervalIndex.update(booking);
+        return booking;
+    }
+
+    private String statusOf(Booking booking) {
+        return jdbcTemplate.queryForObject("select status from bookings where id = ?", String.class, booking.getId());
+    }
+
+    private Item createItem(User owner) {
+        return Item.builder()
+                .name("дрель")
+                .description("ударная")
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+}
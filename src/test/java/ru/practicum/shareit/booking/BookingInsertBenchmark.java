@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows per second of a bulk booking import through {@link BookingRepository#saveAll}, once with one insert
+ * per statement ({@code batch_size=1}) and once with the JDBC batch of application.properties. Ids come from
+ * the pooled sequences in both runs, so the ratio is what batching adds on top of them.
+ * Run with {@code mvn test -Dtest=BookingInsertBenchmark -Dbenchmark=true}.
+ */
+@Slf4j
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookingInsertBenchmark {
+
+    private static final int BOOKINGS = 100_000;
+    private static final int WARM_UP_BOOKINGS = 10_000;
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int ITEMS = 100;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareInsertedRowsPerSecond() {
+        User owner = userRepository.save(User.builder().name("owner").email("import-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("import-booker@shareit.ru").build());
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name("item " + i)
+                    .description("description")
+                    .available(true)
+                    .owner(owner)
+                    .build()));
+        }
+
+        importBookings(items, booker, WARM_UP_BOOKINGS, BATCH_SIZE);
+        long single = importBookings(items, booker, BOOKINGS, 1);
+        long batched = importBookings(items, booker, BOOKINGS, BATCH_SIZE);
+        log.info("bookings import of {} rows: batch_size=1 {} rows/s, batch_size={} {} rows/s, {}x", BOOKINGS,
+                single, BATCH_SIZE, batched, String.format("%.2f", (double) batched / single));
+
+        jdbcTemplate.update("delete from items where owner_id = ?", owner.getId());
+        jdbcTemplate.update("delete from users where id in (?, ?)", owner.getId(), booker.getId());
+    }
+
+    /**
+     * Imports {@code count} bookings in chunks and returns rows per second. The rows are deleted afterwards,
+     * so every run starts from the same table.
+     */
+    private long importBookings(List<Item> items, User booker, int count, int batchSize) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long startNanos = System.nanoTime();
+        for (int offset = 0; offset < count; offset += CHUNK_SIZE) {
+            List<Booking> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (int i = offset; i < offset + CHUNK_SIZE; i++) {
+                LocalDateTime slot = start.plusDays(i / ITEMS);
+                chunk.add(Booking.builder()
+                        .item(items.get(i % ITEMS))
+                        .booker(booker)
+                        .start(slot)
+                        .end(slot.plusHours(2))
+                        .status(BookingStatus.APPROVED)
+                        .build());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                bookingRepository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        jdbcTemplate.update("delete from bookings where booker_id = ?", booker.getId());
+        return Math.round(count / seconds);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Statements and time per request of the booker and owner booking lists of users with a long history.
+ * Every request gets its own session, as open-in-view gives the web layer.
+ * Run with {@code mvn test -Dtest=BookingListBenchmark -Dbenchmark=true}.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookingListBenchmark {
+
+    private static final int ITEMS = 500;
+    private static final int BOOKINGS_PER_ITEM = 100;
+    private static final int PAGE_SIZE = 20;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void measureStatementsPerRequest() {
+        Long ownerId = insertUser("list-owner");
+        Long bookerId = insertUser("list-booker");
+        insertHistory(ownerId, bookerId);
+        int deepPage = ITEMS * BOOKINGS_PER_ITEM / PAGE_SIZE - 1;
+
+        measure("bookings first page", () -> bookingService.getBookingByState(bookerId, "ALL",
+                PageRequest.of(0, PAGE_SIZE), null));
+        measure("bookings deep page", () -> bookingService.getBookingByState(bookerId, "PAST",
+                PageRequest.of(deepPage, PAGE_SIZE), null));
+        measure("bookings/owner first page", () -> bookingService.getBookingByStateAndOwner(ownerId, "ALL",
+                PageRequest.of(0, PAGE_SIZE), null));
+        measure("bookings/owner deep page", () -> bookingService.getBookingByStateAndOwner(ownerId, "PAST",
+                PageRequest.of(deepPage, PAGE_SIZE), null));
+
+        jdbcTemplate.update("delete from bookings where booker_id = ?", bookerId);
+        jdbcTemplate.update("delete from items where owner_id = ?", ownerId);
+        jdbcTemplate.update("delete from users where id in (?, ?)", ownerId, bookerId);
+    }
+
+    private void measure(String name, Supplier<BookingPage> request) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        inSession(request);
+        statistics.clear();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            inSession(request);
+        }
+        double millis = (System.nanoTime() - startNanos) / 1_000_000.0 / ITERATIONS;
+        log.info("{}: {} statements, {} ms per request", name,
+                (double) statistics.getPrepareStatementCount() / ITERATIONS, String.format("%.2f", millis));
+    }
+
+    private void inSession(Supplier<BookingPage> request) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            request.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    private Long insertUser(String name) {
+        jdbcTemplate.update("insert into users (id, name, email) values (next value for users_seq, ?, ?)", name,
+                name + "@bench.ru");
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, name + "@bench.ru");
+    }
+
+    private void insertHistory(Long ownerId, Long bookerId) {
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Object[]{"item " + i, "description " + i, ownerId});
+        }
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner_id) "
+                + "values (next value for items_seq, ?, ?, true, ?)", items);
+        List<Long> itemIds = jdbcTemplate.queryForList("select id from items where owner_id = ?", Long.class,
+                ownerId);
+        LocalDateTime past = LocalDateTime.now().minusYears(1);
+        List<Object[]> bookings = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                LocalDateTime start = past.plusDays(i).plusMinutes(itemId);
+                bookings.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(2)), itemId,
+                        bookerId, ownerId});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (id, start_date, end_date, item_id, booker_id, owner_id, status) "
+                + "values (next value for bookings_seq, ?, ?, ?, ?, ?, 'APPROVED')", bookings);
+    }
+}
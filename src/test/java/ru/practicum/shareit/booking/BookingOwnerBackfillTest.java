@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+@Transactional
+@SpringBootTest(properties = {"db.name=test"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingOwnerBackfillTest {
+
+    @Autowired
+    private BookingOwnerBackfill bookingOwnerBackfill;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void save_ShouldCopyItemOwner() {
+        User owner = userRepository.save(User.builder().name("owner").email("copy-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("copy-booker@shareit.ru").build());
+        Item item = itemRepository.save(createItem(owner));
+
+        Booking booking = bookingRepository.saveAndFlush(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING)
+                .build());
+
+        assertThat(ownerIdOf(booking.getId()), equalTo(owner.getId()));
+    }
+
+    @Test
+    void backfill_ShouldFillMissingAndTransferredOwners() {
+        User owner = userRepository.save(User.builder().name("owner").email("old-owner@shareit.ru").build());
+        User newOwner = userRepository.save(User.builder().name("new owner").email("new-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("fill-booker@shareit.ru").build());
+        Item item = itemRepository.saveAndFlush(createItem(owner));
+        Item transferred = itemRepository.saveAndFlush(createItem(owner));
+        Timestamp start = Timestamp.valueOf(LocalDateTime.now().minusDays(3));
+        Timestamp end = Timestamp.valueOf(LocalDateTime.now().minusDays(2));
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("insert into bookings (id, start_date, end_date, item_id, booker_id, status) "
+                    + "values (next value for bookings_seq, ?, ?, ?, ?, 'APPROVED')", start, end, item.getId(),
+                    booker.getId());
+        }
+        jdbcTemplate.update("insert into bookings (id, start_date, end_date, item_id, booker_id, owner_id, status) "
+                + "values (next value for bookings_seq, ?, ?, ?, ?, ?, 'APPROVED')", start, end,
+                transferred.getId(), booker.getId(), owner.getId());
+        jdbcTemplate.update("update items set owner_id = ? where id = ?", newOwner.getId(), transferred.getId());
+
+        assertThat(bookingOwnerBackfill.backfill(), equalTo(4));
+        assertThat(bookingOwnerBackfill.backfill(), equalTo(0));
+
+        assertThat(bookingService.getBookingByStateAndOwner(owner.getId(), "ALL", PageRequest.of(0, 10), null)
+                .getBookings(), hasSize(3));
+        assertThat(bookingService.getBookingByStateAndOwner(newOwner.getId(), "PAST", PageRequest.of(0, 10), null)
+                .getBookings(), hasSize(1));
+    }
+
+    @Test
+    void changeBookingStatus_ShouldKeepBackfilledOwner() {
+        User owner = userRepository.save(User.builder().name("owner").email("kept-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("kept-booker@shareit.ru").build());
+        Item item = itemRepository.saveAndFlush(createItem(owner));
+        jdbcTemplate.update("insert into bookings (id, start_date, end_date, item_id, booker_id, status) "
+                + "values (next value for bookings_seq, ?, ?, ?, ?, 'WAITING')",
+                Timestamp.valueOf(LocalDateTime.now().plusDays(1)), Timestamp.valueOf(LocalDateTime.now().plusDays(2)),
+                item.getId(), booker.getId());
+        Long bookingId = jdbcTemplate.queryForObject("select max(id) from bookings", Long.class);
+        bookingRepository.findById(bookingId).orElseThrow();
+
+        bookingOwnerBackfill.backfill();
+        bookingService.changeBookingStatus(bookingId, true, owner.getId());
+        bookingRepository.flush();
+
+        assertThat(ownerIdOf(bookingId), equalTo(owner.getId()));
+    }
+
+    private Long ownerIdOf(Long bookingId) {
+        return jdbcTemplate.queryForObject("select owner_id from bookings where id = ?", Long.class, bookingId);
+    }
+
+    private Item createItem(User owner) {
+        return Item.builder()
+                .name("дрель")
+                .description("ударная")
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+}
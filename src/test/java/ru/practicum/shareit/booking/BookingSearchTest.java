@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Transactional
+@SpringBootTest(properties = {"db.name=test", "spring.jpa.properties.hibernate.generate_statistics=true"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingSearchTest {
+
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void cursorWalk_ShouldMatchOffsetListingForEveryState() {
+        User owner = userRepository.save(User.builder().name("owner").email("cursor-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("cursor-booker@shareit.ru").build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Random random = new Random(17);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name("item " + i)
+                    .description("description")
+                    .available(true)
+                    .owner(owner)
+                    .build()));
+        }
+        for (int i = 0; i < 120; i++) {
+            // few distinct starts, so pages often split a group of equal starts
+            LocalDateTime start = now.plusHours(random.nextInt(20) * 6L - 60);
+            bookingRepository.save(Booking.builder()
+                    .item(items.get(random.nextInt(items.size())))
+                    .booker(booker)
+                    .start(start)
+                    .end(start.plusHours(1 + random.nextInt(24)))
+                    .status(BookingStatus.values()[random.nextInt(BookingStatus.values().length)])
+                    .build());
+        }
+
+        for (BookingSearchType type : BookingSearchType.values()) {
+            String state = type.name();
+            assertThat(state, walk((pageable, cursor) ->
+                            bookingService.getBookingByState(booker.getId(), state, pageable, cursor)),
+                    equalTo(ids(bookingService.getBookingByState(booker.getId(), state,
+                            PageRequest.of(0, 1000), null))));
+            assertThat(state, walk((pageable, cursor) ->
+                            bookingService.getBookingByStateAndOwner(owner.getId(), state, pageable, cursor)),
+                    equalTo(ids(bookingService.getBookingByStateAndOwner(owner.getId(), state,
+                            PageRequest.of(0, 1000), null))));
+        }
+    }
+
+    @Test
+    void getBookingByStateAndOwner_ShouldReadPageInOneJoinedSelect() {
+        User owner = userRepository.save(User.builder().name("owner").email("view-owner@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("view-booker@shareit.ru").build());
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        for (int i = 0; i < 10; i++) {
+            Item item = itemRepository.save(Item.builder()
+                    .name("item " + i)
+                    .description("description " + i)
+                    .available(i % 2 == 0)
+                    .requestId(i % 3 == 0 ? null : (long) i)
+                    .owner(owner)
+                    .build());
+            bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(3))
+                    .status(BookingStatus.APPROVED)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BookingPage page = bookingService.getBookingByStateAndOwner(owner.getId(), "ALL",
+                PageRequest.of(0, 10), null);
+
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+        assertThat(page.getBookings(), hasSize(10));
+        for (BookingDto booking : page.getBookings()) {
+            assertThat(booking, equalTo(bookingService.getBooking(owner.getId(), booking.getId())));
+        }
+    }
+
+    @Test
+    void getBookingByState_ShouldRejectMalformedCursor() {
+        User booker = userRepository.save(User.builder().name("booker").email("bad-cursor@shareit.ru").build());
+
+        assertThrows(BadEntityException.class, () -> bookingService.getBookingByState(booker.getId(), "ALL",
+                PageRequest.of(0, PAGE_SIZE), "not a cursor"));
+        assertThrows(BadEntityException.class, () -> bookingService.getBookingByState(booker.getId(), "ALL",
+                PageRequest.of(0, PAGE_SIZE), "MjAyNHwx"));
+    }
+
+    private List<Long> walk(BiFunction<PageRequest, String, BookingPage> search) {
+        List<Long> ids = new ArrayList<>();
+        BookingPage page = search.apply(PageRequest.of(0, PAGE_SIZE), null);
+        ids.addAll(ids(page));
+        while (page.getNextCursor() != null) {
+            page = search.apply(PageRequest.of(0, PAGE_SIZE), page.getNextCursor());
+            assertThat(page.getBookings().size(), greaterThan(0));
+            assertThat(page.getBookings().size(), lessThanOrEqualTo(PAGE_SIZE));
+            ids.addAll(ids(page));
+        }
+        assertThat(page.getNextCursor(), nullValue());
+        return ids;
+    }
+
+    private List<Long> ids(BookingPage page) {
+        return page.getBookings().stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -10,10 +10,13 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoWithId;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
@@ -32,6 +35,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -59,9 +64,16 @@ class BookingServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private BookingSearch bookingSearch;
+
     @InjectMocks
     private BookingService bookingService = new BookingService(bookingRepository,
-            userRepository, itemRepository, bookingMapper, itemMapper, userMapper);
+            userRepository, itemRepository, bookingMapper, itemMapper, userMapper, bookingIntervalIndex,
+            new ItemLockStripes(1), bookingSearch);
 
     @Test
     void save_StandardBehavior() {
@@ -71,6 +83,7 @@ class BookingServiceTest {
         ReflectionTestUtils.setField(bookingService, "bookingMapper", bookingMapper);
         ReflectionTestUtils.setField(bookingService, "itemMapper", itemMapper);
         ReflectionTestUtils.setField(bookingService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(bookingService, "bookingIntervalIndex", bookingIntervalIndex);
 
         User user = createUser();
         UserDto userDto = createUserDto();
@@ -136,6 +149,23 @@ class BookingServiceTest {
         assertThat(notFoundException.getMessage(), equalTo("Пользователь не найден в системе"));
     }
 
+    @Test
+    void changeStatus_ConcurrentChange_ShouldReportConflict() {
+        ReflectionTestUtils.setField(bookingService, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(bookingService, "bookingIntervalIndex", bookingIntervalIndex);
+
+        Booking booking = createBooking();
+
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.save(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, booking.getId()));
+
+        ConflictException conflictException = assertThrows(ConflictException.class,
+                () -> bookingService.changeBookingStatus(booking.getId(), true, createOwner().getId()));
+        assertThat(conflictException.getMessage(), equalTo("Статус бронирования был изменен параллельным запросом"));
+        verify(bookingIntervalIndex, never()).update(any());
+    }
+
     private Booking createBooking() {
         return Booking.builder()
                 .id(1L)
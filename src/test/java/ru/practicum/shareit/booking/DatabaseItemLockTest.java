@@ -0,0 +1,131 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.BookingDtoWithId;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.exception.NotFoundException;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two application contexts play two instances behind a balancer: they share one file-backed H2
+ * database but nothing in memory, so only the row lock on {@code items} keeps their bookings apart.
+ */
+class DatabaseItemLockTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 200;
+
+    @TempDir
+    Path directory;
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:file:" + directory.resolve("shareit").toAbsolutePath() + ";LOCK_TIMEOUT=10000";
+        first = start(url);
+        second = start(url);
+    }
+
+    @AfterEach
+    void tearDown() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void withLock_ShouldLockItemRowOrReportMissingItem() {
+        assertThat(first.getBean(ItemBookingLock.class), instanceOf(DatabaseItemLock.class));
+        assertThrows(NotFoundException.class, () -> first.getBean(ItemBookingLock.class).withLock(-1L, () -> null));
+        assertThat(first.getBean(ItemBookingLock.class).withLocks(List.of(-1L, -2L), () -> "locked"),
+                equalTo("locked"));
+    }
+
+    @Test
+    void createBooking_OverlappingRequestsFromTwoInstancesShouldKeepExactlyOne() throws Exception {
+        JdbcTemplate jdbcTemplate = first.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into users (id, name, email) " +
+                "values (next value for users_seq, 'owner', 'node-owner@shareit.ru')");
+        jdbcTemplate.update("insert into users (id, name, email) " +
+                "values (next value for users_seq, 'booker', 'node-booker@shareit.ru')");
+        Long ownerId = jdbcTemplate.queryForObject("select id from users where name = 'owner'", Long.class);
+        Long bookerId = jdbcTemplate.queryForObject("select id from users where name = 'booker'", Long.class);
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner_id) " +
+                "values (next value for items_seq, 'дрель', 'ударная', true, ?)", ownerId);
+        Long itemId = jdbcTemplate.queryForObject("select id from items", Long.class);
+        List<BookingService> services = List.of(first.getBean(BookingService.class),
+                second.getBean(BookingService.class));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                BookingService bookingService = services.get(i % services.size());
+                BookingDtoWithId request = BookingDtoWithId.builder()
+                        .itemId(itemId)
+                        .start(start.plusMinutes(i % 30))
+                        .end(start.plusHours(2))
+                        .build();
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    try {
+                        bookingService.createBooking(request, bookerId);
+                        created.incrementAndGet();
+                    } catch (BadEntityException e) {
+                        // overlaps the booking that won
+                    }
+                    return null;
+                }));
+            }
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(created.get(), equalTo(1));
+        assertThat(second.getBean(JdbcTemplate.class).queryForObject("select count(*) from bookings where item_id = ?",
+                Integer.class, itemId), equalTo(1));
+    }
+
+    private ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + url,
+                        "spring.datasource.driverClassName=org.h2.Driver",
+                        "spring.datasource.username=test",
+                        "spring.datasource.password=test",
+                        "spring.sql.init.mode=always",
+                        "spring.jmx.enabled=false",
+                        "shareit.booking.lock-mode=database")
+                .run();
+    }
+}
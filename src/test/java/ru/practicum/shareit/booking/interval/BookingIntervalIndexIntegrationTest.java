@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Transactional
+@SpringBootTest(properties = {"db.name=test"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingIntervalIndexIntegrationTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 10, 12, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void lookups_ShouldMatchRepositoryQueries() {
+        User owner = userRepository.save(User.builder().name("owner").email("intervals@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("booker@shareit.ru").build());
+        Random random = new Random(11);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name("item " + i)
+                    .description("description")
+                    .available(true)
+                    .owner(owner)
+                    .build()));
+        }
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            LocalDateTime start = at(random.nextInt(200) - 100);
+            bookings.add(bookingRepository.save(Booking.builder()
+                    .item(items.get(random.nextInt(items.size())))
+                    .booker(booker)
+                    .start(start)
+                    .end(start.plusHours(1 + random.nextInt(48)))
+                    .status(BookingStatus.values()[random.nextInt(BookingStatus.values().length)])
+                    .build()));
+        }
+        BookingIntervalIndex bookingIntervalIndex = new BookingIntervalIndex(bookingRepository);
+        bookingIntervalIndex.rebuild();
+
+        for (int i = 0; i < 300; i++) {
+            Long itemId = items.get(random.nextInt(items.size())).getId();
+            LocalDateTime start = at(random.nextInt(220) - 110);
+            LocalDateTime end = start.plusHours(1 + random.nextInt(72));
+            boolean expectedOverlap = bookingRepository.searchByItemIdAndStartAddEnd(itemId, start, end).stream()
+                    .anyMatch(b -> BookingIntervalIndex.ACTIVE_STATUSES.contains(b.getStatus()));
+            assertThat(bookingIntervalIndex.overlaps(itemId, start, end), equalTo(expectedOverlap));
+
+            Optional<LocalDateTime> expectedLastEnd = bookingRepository
+                    .searchFirstByItemIdAndStartBeforeAndStatusOrderByEndDesc(itemId, start, BookingStatus.APPROVED)
+                    .map(Booking::getEnd);
+            assertThat(Optional.ofNullable(bookingIntervalIndex.findLast(itemId, start))
+                    .map(BookingInterval::getEnd), equalTo(expectedLastEnd));
+
+            Optional<LocalDateTime> expectedNextStart = bookingRepository
+                    .searchFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(itemId, start, BookingStatus.APPROVED)
+                    .map(Booking::getStart);
+            assertThat(Optional.ofNullable(bookingIntervalIndex.findNext(itemId, start))
+                    .map(BookingInterval::getStart), equalTo(expectedNextStart));
+        }
+
+        assertThat(bookingIntervalIndex.verify(), equalTo(0));
+
+        Booking changed = bookings.stream()
+                .filter(b -> b.getStatus() == BookingStatus.REJECTED)
+                .findFirst()
+                .orElseThrow();
+        changed.setStatus(BookingStatus.APPROVED);
+        bookingRepository.saveAndFlush(changed);
+
+        assertThat(bookingIntervalIndex.verify(), equalTo(1));
+        assertThat(bookingIntervalIndex.overlaps(changed.getItem().getId(), changed.getStart(), changed.getEnd()),
+                equalTo(true));
+        assertThat(bookingIntervalIndex.verify(), equalTo(0));
+    }
+
+    private LocalDateTime at(int hours) {
+        return NOW.plusHours(hours * 6L);
+    }
+}
@@ -0,0 +1,184 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 10, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookingIntervalIndex = new BookingIntervalIndex(bookingRepository);
+    }
+
+    @Test
+    void rebuild_ShouldLoadActiveBookingsInChunks() {
+        when(bookingRepository.findIntervalsAfter(eq(0L), any(), any())).thenReturn(List.of(
+                interval(1L, 10L, -5, -3, BookingStatus.APPROVED),
+                interval(2L, 20L, 1, 2, BookingStatus.WAITING)));
+        when(bookingRepository.findIntervalsAfter(eq(2L), any(), any())).thenReturn(List.of(
+                interval(4L, 10L, 2, 4, BookingStatus.APPROVED)));
+        when(bookingRepository.findIntervalsAfter(eq(4L), any(), any())).thenReturn(List.of());
+
+        bookingIntervalIndex.rebuild();
+
+        assertThat(bookingIntervalIndex.isReady(), equalTo(true));
+        assertThat(bookingIntervalIndex.findLast(10L, NOW).getId(), equalTo(1L));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW).getId(), equalTo(4L));
+        assertThat(bookingIntervalIndex.overlaps(20L, at(0), at(1)), equalTo(false));
+        assertThat(bookingIntervalIndex.overlaps(20L, at(0), at(2)), equalTo(true));
+    }
+
+    @Test
+    void rebuild_ShouldKeepUpdatesMadeWhileLoading() {
+        bookingIntervalIndex.update(booking(1L, 10L, 1, 2, BookingStatus.WAITING));
+        when(bookingRepository.findIntervalsAfter(eq(0L), any(), any())).thenAnswer(invocation -> {
+            // booking 2 is saved and booking 1 approved after the snapshot was read
+            bookingIntervalIndex.update(booking(2L, 20L, 3, 4, BookingStatus.WAITING));
+            bookingIntervalIndex.update(booking(1L, 10L, 1, 2, BookingStatus.APPROVED));
+            return List.of(interval(1L, 10L, 1, 2, BookingStatus.WAITING));
+        });
+        when(bookingRepository.findIntervalsAfter(eq(1L), any(), any())).thenReturn(List.of());
+
+        bookingIntervalIndex.rebuild();
+
+        assertThat(bookingIntervalIndex.overlaps(20L, at(3), at(4)), equalTo(true));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW).getId(), equalTo(1L));
+
+        bookingIntervalIndex.update(booking(3L, 30L, 5, 6, BookingStatus.WAITING));
+        assertThat(bookingIntervalIndex.overlaps(30L, at(5), at(6)), equalTo(true));
+    }
+
+    @Test
+    void overlaps_ShouldMatchAnyIntersectionButNotTouchingBounds() {
+        bookingIntervalIndex.update(booking(1L, 10L, 2, 4, BookingStatus.WAITING));
+        bookingIntervalIndex.update(booking(2L, 10L, 10, 20, BookingStatus.APPROVED));
+        bookingIntervalIndex.update(booking(3L, 10L, 5, 6, BookingStatus.APPROVED));
+
+        assertThat(bookingIntervalIndex.overlaps(10L, at(2), at(4)), equalTo(true));
+        assertThat(bookingIntervalIndex.overlaps(10L, at(3), at(5)), equalTo(true));
+        assertThat(bookingIntervalIndex.overlaps(10L, at(11), at(12)), equalTo(true));
+        assertThat(bookingIntervalIndex.overlaps(10L, at(0), at(30)), equalTo(true));
+        assertThat(bookingIntervalIndex.overlaps(10L, at(4), at(5)), equalTo(false));
+        assertThat(bookingIntervalIndex.overlaps(10L, at(6), at(10)), equalTo(false));
+        assertThat(bookingIntervalIndex.overlaps(10L, at(20), at(25)), equalTo(false));
+        assertThat(bookingIntervalIndex.overlaps(11L, at(0), at(30)), equalTo(false));
+    }
+
+    @Test
+    void hasApprovedStart_ShouldOnlyCountApprovedBookingsStartingInRange() {
+        bookingIntervalIndex.update(booking(1L, 10L, -50, -40, BookingStatus.APPROVED));
+        bookingIntervalIndex.update(booking(2L, 10L, -5, 3, BookingStatus.WAITING));
+        bookingIntervalIndex.update(booking(3L, 10L, 2, 4, BookingStatus.APPROVED));
+
+        assertThat(bookingIntervalIndex.hasApprovedStart(10L, at(-10), at(0)), equalTo(false));
+        assertThat(bookingIntervalIndex.hasApprovedStart(10L, at(-50), at(0)), equalTo(true));
+        assertThat(bookingIntervalIndex.hasApprovedStart(10L, at(-10), at(2)), equalTo(true));
+        assertThat(bookingIntervalIndex.hasApprovedStart(10L, at(3), at(30)), equalTo(false));
+        assertThat(bookingIntervalIndex.hasApprovedStart(11L, at(-50), at(30)), equalTo(false));
+    }
+
+    @Test
+    void findLastAndNext_ShouldOnlyConsiderApprovedBookings() {
+        bookingIntervalIndex.update(booking(1L, 10L, -10, -1, BookingStatus.APPROVED));
+        bookingIntervalIndex.update(booking(2L, 10L, -8, -6, BookingStatus.APPROVED));
+        bookingIntervalIndex.update(booking(3L, 10L, -2, 1, BookingStatus.WAITING));
+        bookingIntervalIndex.update(booking(4L, 10L, 1, 2, BookingStatus.WAITING));
+        bookingIntervalIndex.update(booking(5L, 10L, 3, 4, BookingStatus.APPROVED));
+        bookingIntervalIndex.update(booking(6L, 10L, 5, 6, BookingStatus.APPROVED));
+
+        assertThat(bookingIntervalIndex.findLast(10L, NOW).getId(), equalTo(1L));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW).getId(), equalTo(5L));
+        assertThat(bookingIntervalIndex.findLast(10L, at(-9)).getId(), equalTo(1L));
+        assertThat(bookingIntervalIndex.findLast(10L, at(-10)), nullValue());
+        assertThat(bookingIntervalIndex.findNext(10L, at(3)).getId(), equalTo(6L));
+        assertThat(bookingIntervalIndex.findNext(10L, at(5)), nullValue());
+    }
+
+    @Test
+    void update_ShouldFollowStatusChanges() {
+        bookingIntervalIndex.update(booking(1L, 10L, 1, 2, BookingStatus.WAITING));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW), nullValue());
+
+        bookingIntervalIndex.update(booking(1L, 10L, 1, 2, BookingStatus.APPROVED));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW).getId(), equalTo(1L));
+
+        bookingIntervalIndex.update(booking(1L, 10L, 1, 2, BookingStatus.REJECTED));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW), nullValue());
+        assertThat(bookingIntervalIndex.overlaps(10L, at(0), at(3)), equalTo(false));
+    }
+
+    @Test
+    void verify_ShouldReloadItemsThatDrifted() {
+        when(bookingRepository.findIntervalsAfter(eq(0L), any(), any()))
+                .thenReturn(List.of(interval(1L, 10L, 1, 2, BookingStatus.WAITING)));
+        when(bookingRepository.findIntervalsAfter(eq(1L), any(), any())).thenReturn(List.of());
+        bookingIntervalIndex.rebuild();
+        bookingIntervalIndex.update(booking(7L, 30L, 1, 2, BookingStatus.WAITING));
+
+        when(bookingRepository.findIntervalsAfter(eq(0L), any(), any()))
+                .thenReturn(List.of(interval(1L, 10L, 1, 2, BookingStatus.APPROVED),
+                        interval(2L, 20L, 3, 4, BookingStatus.WAITING)));
+        when(bookingRepository.findIntervalsAfter(eq(2L), any(), any())).thenReturn(List.of());
+        when(bookingRepository.findIntervalsByItemId(eq(10L), any()))
+                .thenReturn(List.of(interval(1L, 10L, 1, 2, BookingStatus.APPROVED)));
+        when(bookingRepository.findIntervalsByItemId(eq(20L), any()))
+                .thenReturn(List.of(interval(2L, 20L, 3, 4, BookingStatus.WAITING)));
+        when(bookingRepository.findIntervalsByItemId(eq(30L), any())).thenReturn(List.of());
+
+        assertThat(bookingIntervalIndex.verify(), equalTo(3));
+        assertThat(bookingIntervalIndex.findNext(10L, NOW).getId(), equalTo(1L));
+        assertThat(bookingIntervalIndex.overlaps(20L, at(3), at(4)), equalTo(true));
+        assertThat(bookingIntervalIndex.overlaps(30L, at(1), at(2)), equalTo(false));
+    }
+
+    @Test
+    void verify_ShouldSkipIndexThatIsNotReady() {
+        assertThat(bookingIntervalIndex.verify(), equalTo(0));
+        assertThat(bookingIntervalIndex.isReady(), equalTo(false));
+    }
+
+    private BookingInterval interval(Long id, Long itemId, int startDays, int endDays, BookingStatus status) {
+        return new BookingInterval(id, itemId, 100L, at(startDays), at(endDays), status);
+    }
+
+    private Booking booking(Long id, Long itemId, int startDays, int endDays, BookingStatus status) {
+        return Booking.builder()
+                .id(id)
+                .item(Item.builder().id(itemId).build())
+                .booker(User.builder().id(100L).build())
+                .start(at(startDays))
+                .end(at(endDays))
+                .status(status)
+                .build();
+    }
+
+    private LocalDateTime at(int days) {
+        return NOW.plusDays(days);
+    }
+}
@@ -2,30 +2,40 @@ package ru.practicum.shareit.item;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.availability.AvailabilityInterval;
+import ru.practicum.shareit.item.availability.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.search.ItemSearchPage;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -56,6 +66,96 @@ class ItemControllerTest {
         assertThat((expected.getDescription()), equalTo(itemDto.getDescription()));
     }
 
+    @Test
+    void search_ShouldExposeNextCursor() throws Exception {
+        ItemDto itemDto = createItemDto();
+        when(itemService.getItemsFoundByText(anyLong(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(new ItemSearchPage(List.of(itemDto), "Mw"));
+        mockMvc.perform(get("/items/search")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.ALL)
+                        .param("text", "дрель")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", "1")
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "Mw"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", equalTo(itemDto.getName())));
+    }
+
+    @Test
+    void getAvailability_ShouldAnswerNotModifiedForMatchingETag() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 10, 0, 0);
+        ItemAvailabilityDto availability = ItemAvailabilityDto.builder()
+                .itemId(1L)
+                .from(from)
+                .to(from.plusDays(2))
+                .busy(List.of(new AvailabilityInterval(from.plusHours(4), from.plusDays(1))))
+                .free(List.of(new AvailabilityInterval(from, from.plusHours(4)),
+                        new AvailabilityInterval(from.plusDays(1), from.plusDays(2))))
+                .build();
+        when(itemService.getAvailability(1L, 2L, from, from.plusDays(2))).thenReturn(availability);
+
+        String eTag = mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2024-05-10T00:00:00")
+                        .param("to", "2024-05-12T00:00:00")
+                        .header("X-Sharer-User-Id", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.free", hasSize(2)))
+                .andExpect(jsonPath("$.free[1].start", equalTo("2024-05-11T00:00:00")))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2024-05-10T00:00:00")
+                        .param("to", "2024-05-12T00:00:00")
+                        .header("X-Sharer-User-Id", "2")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void search_ShouldKeepExactOffsetAndReturnAllMatchesWithoutSize() throws Exception {
+        when(itemService.getItemsFoundByText(anyLong(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(new ItemSearchPage(List.of(), null));
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", "3")
+                        .param("size", "2")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<Pageable> pageables = ArgumentCaptor.forClass(Pageable.class);
+        verify(itemService, times(2)).getItemsFoundByText(anyLong(), any(), pageables.capture(), any(), any(),
+                any(), any());
+        assertThat(pageables.getAllValues().get(0).getOffset(), equalTo(3L));
+        assertThat(pageables.getAllValues().get(0).getPageSize(), equalTo(2));
+        assertThat(pageables.getAllValues().get(1).getOffset(), equalTo(0L));
+        assertThat(pageables.getAllValues().get(1).getPageSize(), greaterThan(1_000_000));
+    }
+
+    @Test
+    void suggest_ShouldReturnNames() throws Exception {
+        when(itemService.suggestItemNames("дре", 5)).thenReturn(List.of("дрель", "дрезина"));
+        mockMvc.perform(get("/items/search/suggest")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.ALL)
+                        .param("prefix", "дре")
+                        .param("size", "5")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", equalTo("дрель")));
+    }
+
     @Test
     void getItems_ShouldReturnList() throws Exception {
         ReflectionTestUtils.setField(itemController, "itemService", itemService);
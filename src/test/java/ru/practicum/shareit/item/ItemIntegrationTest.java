@@ -1,29 +1,60 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingLock;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchPage;
+import ru.practicum.shareit.service.OffsetPageRequest;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 
 @Transactional
-@SpringBootTest(properties = {"db.name=test"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@SpringBootTest(properties = {"db.name=test", "spring.jpa.properties.hibernate.generate_statistics=true"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @Sql(scripts = {"classpath:./schema.sql", "classpath:./DataForTests.sql"},
         executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -48,9 +79,24 @@ class ItemIntegrationTest {
 
     @Autowired
     private UserMapper userMapper;
-    private final UserService userService = new UserService(userRepository, userMapper);
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private ItemBookingLock itemBookingLock;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final UserService userService = new UserService(userRepository, userMapper, itemRepository, itemSearchIndex,
+            createCache());
     private final ItemService itemService = new ItemService(itemRepository, userRepository, bookingRepository,
-            commentRepository, itemMapper, commentMapper,  userMapper);
+            commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+            new BookingIntervalIndex(bookingRepository), itemBookingLock);
 
 
     @Test
@@ -68,11 +114,335 @@ class ItemIntegrationTest {
         ReflectionTestUtils.setField(itemService, "commentMapper", commentMapper);
 
         ReflectionTestUtils.setField(itemService, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        itemSearchIndex.rebuild();
 
-        List<ItemDto> itemsDto = itemService.getItemsFoundByText(1L, "ЭлеКтриЧеск", 0, 5);
+        List<ItemDto> itemsDto = itemService.getItemsFoundByText(1L, "ЭлеКтриЧеск",
+                PageRequest.of(0, 5), null, "ID").getItems();
 
         assertThat(itemsDto, hasSize(2));
         assertThat(itemsDto.get(0).getName(), equalTo("дрель"));
         assertThat(itemsDto.get(1).getName(), equalTo("чайник"));
     }
+
+    @Test
+    void getTargetItem_ShouldUseTwoStatements() {
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        Item item = itemRepository.findById(2L).orElseThrow();
+        Booking nextBooking = bookingRepository.saveAndFlush(Booking.builder()
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .item(item)
+                .booker(userRepository.findById(3L).orElseThrow())
+                .status(BookingStatus.APPROVED)
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ItemDto ownerView = itemService.getTargetItem(2L, 4L);
+
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+        assertThat(ownerView.getName(), equalTo("пистолет"));
+        assertThat(ownerView.getOwner().getId(), equalTo(4L));
+        assertThat(ownerView.getLastBooking(), equalTo(new ItemBookingDto(6L, 6L)));
+        assertThat(ownerView.getNextBooking(), equalTo(new ItemBookingDto(nextBooking.getId(), 3L)));
+        assertThat(ownerView.getComments(), hasSize(1));
+        assertThat(ownerView.getComments().iterator().next().getAuthorName(), equalTo("Maikoo"));
+
+        statistics.clear();
+        ItemDto guestView = itemService.getTargetItem(2L, 1L);
+
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+        assertThat(guestView.getLastBooking(), nullValue());
+        assertThat(guestView.getNextBooking(), nullValue());
+        assertThat(guestView.getComments(), hasSize(1));
+        assertThrows(NotFoundException.class, () -> itemService.getTargetItem(100L, 1L));
+    }
+
+    @Test
+    void getItemsByOwnerId_ShouldPickOneLastAndNextBookingPerItem() {
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(itemService, "itemBookingLock", itemBookingLock);
+        User booker = userRepository.findById(3L).orElseThrow();
+        Item crane = itemRepository.findById(9L).orElseThrow();
+        Booking nearBooking = bookingRepository.save(Booking.builder()
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .item(crane)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .start(LocalDateTime.now().plusDays(5))
+                .end(LocalDateTime.now().plusDays(6))
+                .item(crane)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .item(itemRepository.findById(3L).orElseThrow())
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ItemDto> items = itemService.getItemsByOwnerId(1L, PageRequest.of(0, 10));
+
+        assertThat(statistics.getEntityStatistics(Booking.class.getName()).getLoadCount(), equalTo(0L));
+        assertThat(items.stream().map(ItemDto::getId).collect(Collectors.toList()), equalTo(List.of(3L, 7L, 8L, 9L)));
+        assertThat(items.get(0).getLastBooking(), nullValue());
+        assertThat(items.get(0).getNextBooking(), nullValue());
+        assertThat(items.get(1).getLastBooking(), equalTo(new ItemBookingDto(11L, 6L)));
+        assertThat(items.get(1).getNextBooking(), nullValue());
+        assertThat(items.get(2).getLastBooking(), nullValue());
+        assertThat(items.get(3).getLastBooking(), equalTo(new ItemBookingDto(7L, 2L)));
+        assertThat(items.get(3).getNextBooking(), equalTo(new ItemBookingDto(nearBooking.getId(), 3L)));
+
+        BookingIntervalIndex bookingIntervalIndex = new BookingIntervalIndex(bookingRepository);
+        bookingIntervalIndex.rebuild();
+        ReflectionTestUtils.setField(itemService, "bookingIntervalIndex", bookingIntervalIndex);
+
+        assertThat(itemService.getItemsByOwnerId(1L, PageRequest.of(0, 10)), equalTo(items));
+    }
+
+    @Test
+    void loadItems_ShouldNotFetchBookingsOrComments() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Item item = itemRepository.findById(2L).orElseThrow();
+        List<Item> ownerItems = itemRepository.findByOwnerIdOrderById(1L, PageRequest.of(0, 10));
+        List<Item> foundItems = itemRepository.findByNameOrDescription("%дрел%", PageRequest.of(0, 10))
+                .getContent();
+
+        assertThat(ownerItems, hasSize(4));
+        assertThat(foundItems, hasSize(1));
+        assertThat(Hibernate.isInitialized(item.getItemBookings()), equalTo(false));
+        assertThat(Hibernate.isInitialized(item.getItemComments()), equalTo(false));
+        assertThat(statistics.getCollectionStatistics(Item.class.getName() + ".itemBookings").getFetchCount(),
+                equalTo(0L));
+        assertThat(statistics.getCollectionStatistics(Item.class.getName() + ".itemComments").getFetchCount(),
+                equalTo(0L));
+
+        entityManager.clear();
+        statistics.clear();
+        Item withBookings = itemRepository.findWithBookingsById(2L).orElseThrow();
+        Item withComments = itemRepository.findWithCommentsById(2L).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(withBookings.getItemBookings()), equalTo(true));
+        assertThat(withBookings.getItemBookings(), hasSize(3));
+        assertThat(Hibernate.isInitialized(withComments.getItemComments()), equalTo(true));
+        assertThat(withComments.getItemComments(), hasSize(1));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void searchItem_CursorShouldWalkAllMatches() {
+        User owner = userRepository.save(User.builder().name("owner").email("cursor@shareit.ru").build());
+        itemRepository.save(createItem(owner, "дрель", "электрическая дрель"));
+        itemRepository.save(createItem(owner, "поводок", "для малых пород собак"));
+        itemRepository.save(createItem(owner, "чайник", "электрический чайник"));
+        itemSearchIndex.rebuild();
+        ItemService indexedService = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+                new BookingIntervalIndex(bookingRepository), itemBookingLock);
+        ItemService scanningService = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, new ItemSearchIndex(itemRepository),
+                createCache(), new BookingIntervalIndex(bookingRepository), itemBookingLock);
+
+        List<String> expected = List.of("дрель", "чайник");
+        assertThat(walkWithCursor(indexedService, owner.getId(), "электрическ"), equalTo(expected));
+        assertThat(walkWithCursor(scanningService, owner.getId(), "электрическ"), equalTo(expected));
+
+        ItemSearchPage second = scanningService.getItemsFoundByText(owner.getId(), "электрическ",
+                PageRequest.of(1, 1), null, "ID");
+        assertThat(second.getItems().get(0).getName(), equalTo("чайник"));
+        assertThat(second.getNextCursor(), nullValue());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void searchItem_CursorShouldPassItemsDeletedBehindIndex() {
+        User owner = userRepository.save(User.builder().name("owner").email("deleted@shareit.ru").build());
+        Item first = itemRepository.save(createItem(owner, "дрель", "электрическая дрель"));
+        Item second = itemRepository.save(createItem(owner, "лобзик", "электрический лобзик"));
+        itemRepository.save(createItem(owner, "чайник", "электрический чайник"));
+        itemSearchIndex.rebuild();
+        itemRepository.deleteAllById(List.of(first.getId(), second.getId()));
+        itemRepository.flush();
+        ItemService service = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+                new BookingIntervalIndex(bookingRepository), itemBookingLock);
+
+        ItemSearchPage page = service.getItemsFoundByText(owner.getId(), "электрическ", PageRequest.of(0, 1),
+                null, "ID");
+        assertThat(page.getItems(), hasSize(0));
+        List<String> names = new ArrayList<>();
+        while (page.getNextCursor() != null) {
+            page = service.getItemsFoundByText(owner.getId(), "электрическ", PageRequest.of(0, 1),
+                    page.getNextCursor(), "ID");
+            page.getItems().forEach(item -> names.add(item.getName()));
+        }
+        assertThat(names, equalTo(List.of("чайник")));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void searchItem_RelevanceShouldRankNameAboveDescriptionAndBoostBooked() {
+        User owner = userRepository.save(User.builder().name("owner").email("rank@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("booker@shareit.ru").build());
+        Item caseForDrill = itemRepository.save(createItem(owner, "чехол", "для дрели"));
+        Item drill = itemRepository.save(createItem(owner, "дрель", "ударная"));
+        Item bookedCase = itemRepository.save(createItem(owner, "кейс", "для дрели"));
+        Item miniDrill = itemRepository.save(createItem(owner, "мини-дрель", "дрель"));
+        bookingRepository.save(Booking.builder()
+                .start(LocalDateTime.now().minusDays(2))
+                .end(LocalDateTime.now().minusDays(1))
+                .item(bookedCase)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build());
+        itemSearchIndex.rebuild();
+        BookingIntervalIndex readyIntervals = new BookingIntervalIndex(bookingRepository);
+        readyIntervals.rebuild();
+        ItemService indexedService = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+                new BookingIntervalIndex(bookingRepository), itemBookingLock);
+        ItemService intervalService = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+                readyIntervals, itemBookingLock);
+        ItemService scanningService = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, new ItemSearchIndex(itemRepository),
+                createCache(), new BookingIntervalIndex(bookingRepository), itemBookingLock);
+
+        List<Long> expected = List.of(miniDrill.getId(), drill.getId(), bookedCase.getId(), caseForDrill.getId());
+        for (ItemService service : List.of(indexedService, intervalService, scanningService)) {
+            List<Long> ranked = service.getItemsFoundByText(owner.getId(), "дрел", PageRequest.of(0, 10),
+                            null, "RELEVANCE").getItems().stream()
+                    .map(ItemDto::getId)
+                    .collect(Collectors.toList());
+            assertThat(ranked, equalTo(expected));
+            List<Long> secondPage = service.getItemsFoundByText(owner.getId(), "дрел", PageRequest.of(1, 2),
+                            null, "RELEVANCE").getItems().stream()
+                    .map(ItemDto::getId)
+                    .collect(Collectors.toList());
+            assertThat(secondPage, equalTo(expected.subList(2, 4)));
+        }
+        assertThrows(BadEntityException.class, () -> indexedService.getItemsFoundByText(owner.getId(), "дрел",
+                PageRequest.of(0, 10), null, "POPULAR"));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void searchItem_ShouldSkipItemsBookedInPeriod() {
+        User owner = userRepository.save(User.builder().name("owner").email("free@shareit.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("free-booker@shareit.ru").build());
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = start.plusDays(2);
+        Item approved = itemRepository.save(createItem(owner, "дрель", "занята"));
+        Item waiting = itemRepository.save(createItem(owner, "дрель", "ждет подтверждения"));
+        Item rejected = itemRepository.save(createItem(owner, "дрель", "отклонена"));
+        Item later = itemRepository.save(createItem(owner, "дрель", "занята позже"));
+        Item free = itemRepository.save(createItem(owner, "дрель", "без бронирований"));
+        saveBooking(approved, booker, start.minusDays(1), start.plusHours(1), BookingStatus.APPROVED);
+        saveBooking(waiting, booker, end.minusHours(1), end.plusDays(1), BookingStatus.WAITING);
+        saveBooking(rejected, booker, start, end, BookingStatus.REJECTED);
+        saveBooking(later, booker, end, end.plusDays(1), BookingStatus.APPROVED);
+        itemSearchIndex.rebuild();
+        BookingIntervalIndex readyIntervals = new BookingIntervalIndex(bookingRepository);
+        readyIntervals.rebuild();
+
+        List<Long> expected = List.of(rejected.getId(), later.getId(), free.getId());
+        for (ItemSearchIndex searchIndex : List.of(itemSearchIndex, new ItemSearchIndex(itemRepository))) {
+            for (BookingIntervalIndex intervals : List.of(readyIntervals,
+                    new BookingIntervalIndex(bookingRepository))) {
+                ItemService service = new ItemService(itemRepository, userRepository, bookingRepository,
+                        commentRepository, itemMapper, commentMapper, userMapper, searchIndex, createCache(),
+                        intervals, itemBookingLock);
+                List<Long> found = new ArrayList<>();
+                ItemSearchPage page = service.getItemsFoundByText(owner.getId(), "дрель", PageRequest.of(0, 2),
+                        null, "ID", start, end);
+                found.addAll(ids(page));
+                while (page.getNextCursor() != null) {
+                    page = service.getItemsFoundByText(owner.getId(), "дрель", PageRequest.of(0, 2),
+                            page.getNextCursor(), "ID", start, end);
+                    found.addAll(ids(page));
+                }
+                assertThat(found, equalTo(expected));
+                assertThat(ids(service.getItemsFoundByText(owner.getId(), "дрель", PageRequest.of(1, 2), null,
+                        "ID", start, end)), equalTo(expected.subList(2, 3)));
+                assertThat(ids(service.getItemsFoundByText(owner.getId(), "дрель", OffsetPageRequest.of(1, 2), null,
+                        "ID", start, end)), equalTo(expected.subList(1, 3)));
+                assertThat(ids(service.getItemsFoundByText(owner.getId(), "дрель", PageRequest.of(0, 10), null,
+                        "RELEVANCE", start, end)), containsInAnyOrder(expected.toArray()));
+            }
+        }
+        // another instance books the free item, the interval index of this one never sees it
+        saveBooking(free, booker, start, end, BookingStatus.APPROVED);
+        ItemBookingLock clusterLock = mock(ItemBookingLock.class);
+        when(clusterLock.isClusterWide()).thenReturn(true);
+        ItemService clusterService = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+                readyIntervals, clusterLock);
+        assertThat(ids(clusterService.getItemsFoundByText(owner.getId(), "дрель", PageRequest.of(0, 10), null,
+                "ID", start, end)), equalTo(expected.subList(0, 2)));
+
+        ItemService service = new ItemService(itemRepository, userRepository, bookingRepository,
+                commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, createCache(),
+                readyIntervals, itemBookingLock);
+        assertThrows(BadEntityException.class, () -> service.getItemsFoundByText(owner.getId(), "дрель",
+                PageRequest.of(0, 10), null, "ID", start, null));
+        assertThrows(BadEntityException.class, () -> service.getItemsFoundByText(owner.getId(), "дрель",
+                PageRequest.of(0, 10), null, "ID", end, start));
+    }
+
+    private void saveBooking(Item item, User booker, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        bookingRepository.save(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build());
+    }
+
+    private List<Long> ids(ItemSearchPage page) {
+        return page.getItems().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private ItemSearchCache createCache() {
+        return new ItemSearchCache(100, Duration.ofMinutes(1));
+    }
+
+    private Item createItem(User owner, String name, String description) {
+        return Item.builder()
+                .name(name)
+                .description(description)
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+
+    private List<String> walkWithCursor(ItemService service, Long userId, String text) {
+        List<String> names = new ArrayList<>();
+        ItemSearchPage page = service.getItemsFoundByText(userId, text, PageRequest.of(0, 1), null, "ID");
+        names.add(page.getItems().get(0).getName());
+        while (page.getNextCursor() != null) {
+            page = service.getItemsFoundByText(userId, text, PageRequest.of(0, 1), page.getNextCursor(), "ID");
+            assertThat(page.getItems(), hasSize(1));
+            names.add(page.getItems().get(0).getName());
+        }
+        return names;
+    }
 }
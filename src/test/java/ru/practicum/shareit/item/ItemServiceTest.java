@@ -11,19 +11,30 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.ItemBookingLock;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.exception.BadEntityException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ItemNotOwnedByUserException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemBookingsView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -32,6 +43,10 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Slf4j
@@ -61,15 +76,30 @@ class ItemServiceTest {
     @Mock
     private ItemMapper itemMapper;
 
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private ItemSearchCache itemSearchCache;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private ItemBookingLock itemBookingLock;
+
     @InjectMocks
     private ItemService itemService = new ItemService(itemRepository, userRepository, bookingRepository,
-            commentRepository, itemMapper, commentMapper, userMapper);
+            commentRepository, itemMapper, commentMapper, userMapper, itemSearchIndex, itemSearchCache,
+            bookingIntervalIndex, itemBookingLock);
 
     @Test
     void createItem_StandardBehavior() {
         ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
         ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
         ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(itemService, "itemSearchCache", itemSearchCache);
         ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
 
         User owner = createOwner();
@@ -82,6 +112,7 @@ class ItemServiceTest {
 
         ItemDto expectedItemDto = itemService.createItem(owner.getId(), itemDto);
 
+        verify(itemSearchCache).invalidate(null, null, item.getName(), item.getDescription());
         assertThat(expectedItemDto.getId(), equalTo(itemDto.getId()));
         assertThat(expectedItemDto.getName(), equalTo(itemDto.getName()));
         assertThat(expectedItemDto.getDescription(), equalTo(itemDto.getDescription()));
@@ -102,6 +133,20 @@ class ItemServiceTest {
                 equalTo("Пользователь, для которого создается предмет, не найден в системе"));
     }
 
+    @Test
+    void getAvailability_ShouldRejectEmptyOrTooLongPeriod() {
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
+
+        LocalDateTime from = LocalDateTime.of(2024, 5, 10, 0, 0);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsById(anyLong())).thenReturn(true);
+
+        assertThrows(BadEntityException.class, () -> itemService.getAvailability(1L, 1L, from, from));
+        assertThrows(BadEntityException.class,
+                () -> itemService.getAvailability(1L, 1L, from, from.plusDays(367)));
+    }
+
     @Test
     void updateItem_ItemIdNotExist() {
         ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
@@ -147,6 +192,8 @@ class ItemServiceTest {
         ReflectionTestUtils.setField(itemService, "bookingRepository", bookingRepository);
         ReflectionTestUtils.setField(itemService, "commentRepository", commentRepository);
         ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(itemService, "itemSearchCache", itemSearchCache);
         ReflectionTestUtils.setField(itemService, "commentMapper", commentMapper);
         ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
 
@@ -176,6 +223,8 @@ class ItemServiceTest {
         ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
         ReflectionTestUtils.setField(itemService, "bookingRepository", bookingRepository);
         ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(itemService, "itemSearchCache", itemSearchCache);
         ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
         ReflectionTestUtils.setField(itemService, "commentMapper", commentMapper);
         ReflectionTestUtils.setField(itemService, "commentRepository", commentRepository);
@@ -207,6 +256,8 @@ class ItemServiceTest {
         ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
         ReflectionTestUtils.setField(itemService, "bookingRepository", bookingRepository);
         ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(itemService, "itemSearchCache", itemSearchCache);
         ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
         ReflectionTestUtils.setField(itemService, "commentMapper", commentMapper);
         ReflectionTestUtils.setField(itemService, "commentRepository", commentRepository);
@@ -232,12 +283,66 @@ class ItemServiceTest {
         assertThat(expectedItemDto.isAvailable(), equalTo(itemDto.isAvailable()));
     }
 
+    @Test
+    void updateItem_ConcurrentChange_ShouldRetryOnFreshItem() {
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(itemService, "itemSearchCache", itemSearchCache);
+        ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
+
+        Map<String, Object> updates = Map.of("name", "ноутбук");
+
+        User owner = createOwner();
+        ItemDto itemDto = createItemDtoUpdatedName((String) updates.get("name"));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(createItem()));
+        when(itemRepository.save(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, itemDto.getId()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemMapper.itemToItemDto(any(), any())).thenReturn(itemDto);
+
+        ItemDto expectedItemDto = itemService.updateItem(owner.getId(), itemDto.getId(), updates);
+
+        assertThat(expectedItemDto.getName(), equalTo(itemDto.getName()));
+        verify(itemRepository, times(2)).save(any());
+        verify(itemSearchIndex, times(1)).index(any());
+    }
+
+    @Test
+    void updateItem_PersistentConflict_ShouldGiveUpAfterThreeAttempts() {
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+
+        Map<String, Object> updates = Map.of("name", "ноутбук");
+
+        User owner = createOwner();
+        Item item = createItem();
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(createItem()));
+        when(itemRepository.save(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, item.getId()));
+
+        ConflictException conflictException = assertThrows(ConflictException.class,
+                () -> itemService.updateItem(owner.getId(), item.getId(), updates));
+        assertThat(conflictException.getMessage(),
+                equalTo("Предмет одновременно изменяется другим запросом, повторите попытку"));
+        verify(itemRepository, times(3)).save(any());
+        verify(itemSearchIndex, times(0)).index(any());
+    }
+
     @Test
     void getItem_StandardBehavior() {
         ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
         ReflectionTestUtils.setField(itemService, "userRepository", userRepository);
         ReflectionTestUtils.setField(itemService, "bookingRepository", bookingRepository);
         ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(itemService, "itemSearchCache", itemSearchCache);
         ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
         ReflectionTestUtils.setField(itemService, "commentMapper", commentMapper);
         ReflectionTestUtils.setField(itemService, "commentRepository", commentRepository);
@@ -259,6 +364,30 @@ class ItemServiceTest {
         assertThat(expectedItemDto.isAvailable(), equalTo(itemDto.isAvailable()));
     }
 
+    @Test
+    void getItemsByOwnerId_ClusterWide_ShouldReadBookingsFromDatabase() {
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "itemMapper", itemMapper);
+        ReflectionTestUtils.setField(itemService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(itemService, "bookingIntervalIndex", bookingIntervalIndex);
+        ReflectionTestUtils.setField(itemService, "itemBookingLock", itemBookingLock);
+
+        Item item = createItem();
+        ItemBookingsView itemBookings = mock(ItemBookingsView.class);
+        when(itemBookings.getItemId()).thenReturn(item.getId());
+        when(itemBookingLock.isClusterWide()).thenReturn(true);
+        when(bookingIntervalIndex.isReady()).thenReturn(true);
+        when(itemRepository.findByOwnerIdOrderById(anyLong(), any())).thenReturn(List.of(item));
+        when(itemRepository.findBookingsByIdIn(any(), any(), any())).thenReturn(List.of(itemBookings));
+        when(itemMapper.itemToItemDtoWithBookings(any(), any(), any(), any())).thenReturn(createItemDto());
+
+        List<ItemDto> itemsDto = itemService.getItemsByOwnerId(item.getOwner().getId(), PageRequest.of(0, 10));
+
+        assertThat(itemsDto.size(), equalTo(1));
+        verify(itemRepository).findBookingsByIdIn(any(), any(), any());
+        verify(bookingIntervalIndex, never()).findLast(anyLong(), any());
+    }
+
     private Item createItem() {
         return Item.builder()
                 .id(1L)
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.item.availability;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class AvailabilitySweepTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 10, 12, 0);
+
+    @Test
+    void merge_ShouldJoinOverlappingAndTouchingBookings() {
+        ItemAvailabilityDto availability = AvailabilitySweep.merge(1L, List.of(
+                interval(-5, 2),
+                interval(1, 3),
+                interval(3, 4),
+                interval(6, 8),
+                interval(7, 7),
+                interval(9, 30)), at(0), at(20));
+
+        assertThat(availability.getBusy(), equalTo(List.of(
+                new AvailabilityInterval(at(0), at(4)),
+                new AvailabilityInterval(at(6), at(8)),
+                new AvailabilityInterval(at(9), at(20)))));
+        assertThat(availability.getFree(), equalTo(List.of(
+                new AvailabilityInterval(at(4), at(6)),
+                new AvailabilityInterval(at(8), at(9)))));
+    }
+
+    @Test
+    void merge_ShouldReturnWholeWindowAsFreeWithoutBookings() {
+        ItemAvailabilityDto availability = AvailabilitySweep.merge(1L, List.of(), at(0), at(10));
+
+        assertThat(availability.getBusy(), equalTo(List.of()));
+        assertThat(availability.getFree(), equalTo(List.of(new AvailabilityInterval(at(0), at(10)))));
+    }
+
+    @Test
+    void merge_ShouldMatchHourByHourOccupancy() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            List<BookingInterval> bookings = new ArrayList<>();
+            boolean[] occupied = new boolean[48];
+            for (int i = 0; i < random.nextInt(12); i++) {
+                int start = random.nextInt(60) - 6;
+                int end = start + 1 + random.nextInt(8);
+                bookings.add(interval(start, end));
+                for (int hour = Math.max(start, 0); hour < Math.min(end, occupied.length); hour++) {
+                    occupied[hour] = true;
+                }
+            }
+            bookings.sort(Comparator.comparing(BookingInterval::getStart));
+
+            ItemAvailabilityDto availability = AvailabilitySweep.merge(1L, bookings, at(0), at(occupied.length));
+
+            assertThat(availability.getBusy(), equalTo(runs(occupied, true)));
+            assertThat(availability.getFree(), equalTo(runs(occupied, false)));
+        }
+    }
+
+    private List<AvailabilityInterval> runs(boolean[] occupied, boolean busy) {
+        List<AvailabilityInterval> runs = new ArrayList<>();
+        int hour = 0;
+        while (hour < occupied.length) {
+            if (occupied[hour] != busy) {
+                hour++;
+                continue;
+            }
+            int start = hour;
+            while (hour < occupied.length && occupied[hour] == busy) {
+                hour++;
+            }
+            runs.add(new AvailabilityInterval(at(start), at(hour)));
+        }
+        return runs;
+    }
+
+    private BookingInterval interval(int startHours, int endHours) {
+        return new BookingInterval(1L, 1L, 2L, at(startHours), at(endHours), BookingStatus.APPROVED);
+    }
+
+    private LocalDateTime at(int hours) {
+        return NOW.plusHours(hours);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the in-memory index with the LIKE scan it replaces.
+ * Run with {@code mvn test -Dtest=ItemSearchBenchmark -Dbenchmark=true -DargLine=-Xmx3g}.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ItemSearchBenchmark {
+
+    private static final String[] WORDS = {"дрель", "электрическая", "ударная", "чайник", "велосипед", "детский",
+            "кран", "шаровый", "сумка", "кожаная", "поводок", "газонокосилка", "бензиновая", "ноутбук",
+            "ультратонкий", "палатка", "туристическая", "лестница", "складная", "пылесос", "моющий", "самокат",
+            "перфоратор", "аккумуляторный", "спальник", "зимний", "коляска", "прогулочная", "шуруповерт", "мощный"};
+    private static final String[] QUERIES = {"дрель", "электрич", "велосипед детский", "шуруповерт мощный"};
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Test
+    void compareIndexWithLikeScan() {
+        jdbcTemplate.update("insert into users (id, name, email) "
+                + "values (next value for users_seq, 'bench', 'bench@shareit.ru')");
+        Long ownerId = jdbcTemplate.queryForObject("select id from users where email = 'bench@shareit.ru'",
+                Long.class);
+        Random random = new Random(42);
+        int loaded = 0;
+        for (int size : SIZES) {
+            loaded = insertItems(ownerId, loaded, size, random);
+            long buildStart = System.nanoTime();
+            itemSearchIndex.rebuild();
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+            log.info("items={} index build={} ms", size, buildMillis);
+            double suggestMicros = measure(() -> itemSearchIndex.suggest("дре", 10).size());
+            log.info("items={} suggest={} us trie nodes={} trie memory={} bytes", size, Math.round(suggestMicros),
+                    itemSearchIndex.suggestNodes(), itemSearchIndex.suggestBytes());
+            for (String query : QUERIES) {
+                String pattern = "%" + SearchText.normalize(query) + "%";
+                double likeMicros = measure(() -> jdbcTemplate.queryForList("select id from items "
+                        + "where is_available = true and (lower(name) like ? or lower(description) like ?)",
+                        Long.class, pattern, pattern).size());
+                double indexMicros = measure(() -> itemSearchIndex.search(query).size());
+                log.info("items={} query='{}' like={} us index={} us speedup={}x", size, query,
+                        Math.round(likeMicros), Math.round(indexMicros), Math.round(likeMicros / indexMicros));
+            }
+        }
+        jdbcTemplate.update("delete from items where owner_id = ?", ownerId);
+        jdbcTemplate.update("delete from users where id = ?", ownerId);
+        itemSearchIndex.rebuild();
+    }
+
+    private int insertItems(Long ownerId, int from, int to, Random random) {
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            batch.add(new Object[]{phrase(random, 2), phrase(random, 4), ownerId});
+            if (batch.size() == 10_000) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+        return to;
+    }
+
+    private void flush(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner_id) "
+                + "values (next value for items_seq, ?, ?, true, ?)", batch);
+        batch.clear();
+    }
+
+    private String phrase(Random random, int words) {
+        StringBuilder builder = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = 1; i < words; i++) {
+            builder.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private double measure(Runnable action) {
+        action.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
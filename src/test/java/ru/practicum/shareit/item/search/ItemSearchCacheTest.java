@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemSearchCacheTest {
+
+    private final Clock clock = mock(Clock.class);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ItemSearchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.millis()).thenReturn(0L);
+        cache = new ItemSearchCache(2, Duration.ofSeconds(10), clock);
+    }
+
+    @Test
+    void get_ShouldReturnCachedPageUntilTtlExpires() {
+        ItemSearchPage first = cache.get(key("дрель"), this::load);
+
+        assertThat(cache.get(key("дрель"), this::load), sameInstance(first));
+        when(clock.millis()).thenReturn(10_000L);
+        cache.get(key("дрель"), this::load);
+
+        assertThat(loads.get(), equalTo(2));
+        assertThat(cache.hits(), equalTo(1L));
+        assertThat(cache.misses(), equalTo(2L));
+        assertThat(cache.evictions(), equalTo(1L));
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedEntry() {
+        cache.get(key("дрель"), this::load);
+        cache.get(key("кран"), this::load);
+        cache.get(key("дрель"), this::load);
+        cache.get(key("сумка"), this::load);
+
+        cache.get(key("дрель"), this::load);
+        cache.get(key("кран"), this::load);
+
+        assertThat(loads.get(), equalTo(4));
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.evictions(), equalTo(2L));
+    }
+
+    @Test
+    void invalidate_ShouldDropOnlyQueriesMatchingOldOrNewText() {
+        cache = new ItemSearchCache(10, Duration.ofSeconds(10), clock);
+        cache.get(key("дрел"), this::load);
+        cache.get(key("кран"), this::load);
+        cache.get(key("перфоратор"), this::load);
+        cache.get(key("сумка"), this::load);
+
+        cache.invalidate("Дрель", "ударная", "Перфоратор", "ударный");
+
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.invalidations(), equalTo(2L));
+        cache.get(key("кран"), this::load);
+        assertThat(loads.get(), equalTo(4));
+    }
+
+    @Test
+    void get_ShouldNotStorePageLoadedBeforeInvalidation() {
+        cache.get(key("дрель"), () -> {
+            cache.invalidate(null, null, "дрель", "новая");
+            return load();
+        });
+
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    private ItemSearchCache.Key key(String text) {
+        return new ItemSearchCache.Key(text, ItemSearchSort.ID, 0, 10, null);
+    }
+
+    private ItemSearchPage load() {
+        loads.incrementAndGet();
+        return ItemSearchPage.empty();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Transactional
+@SpringBootTest(properties = {"db.name=test"}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql(scripts = "classpath:./schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class ItemSearchIndexIntegrationTest {
+
+    private static final String[] WORDS = {"Дрель", "электрическая", "ударная", "чайник", "Велосипед", "детский",
+            "кран", "шаровый", "сумка", "кожаная", "газонокосилка", "бензиновая", "iPhone", "USB-кабель",
+            "(новый)", "2кг"};
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Test
+    void search_ShouldReturnSameItemsAsQuery() {
+        User owner = userRepository.save(User.builder().name("owner").email("trigram@shareit.ru").build());
+        Random random = new Random(7);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name(phrase(random, 1 + random.nextInt(2)))
+                    .description(phrase(random, 2 + random.nextInt(3)))
+                    .available(random.nextInt(4) > 0)
+                    .owner(owner)
+                    .build()));
+        }
+        itemSearchIndex.rebuild();
+
+        Set<String> queries = new LinkedHashSet<>(List.of("ДРЕЛ", "ая др", " кран ", "usb", "(н", "2", "й",
+                "нет такого", "чайник чайник"));
+        for (int i = 0; i < 300; i++) {
+            Item item = items.get(random.nextInt(items.size()));
+            String text = random.nextBoolean() ? item.getName() : item.getDescription();
+            int start = random.nextInt(text.length());
+            String query = text.substring(start, Math.min(text.length(), start + 1 + random.nextInt(8)));
+            if (!query.isBlank()) {
+                queries.add(query);
+            }
+        }
+
+        for (String query : queries) {
+            List<Long> expected = itemRepository
+                    .findByNameOrDescription("%" + query.trim().toLowerCase() + "%", Pageable.unpaged())
+                    .stream()
+                    .map(Item::getId)
+                    .collect(Collectors.toList());
+            assertThat("query '" + query + "'", itemSearchIndex.search(query), equalTo(expected));
+        }
+    }
+
+    private String phrase(Random random, int words) {
+        StringBuilder builder = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = 1; i < words; i++) {
+            builder.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,225 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        itemSearchIndex = new ItemSearchIndex(itemRepository);
+    }
+
+    @Test
+    void rebuild_ShouldIndexRepositoryContent() {
+        when(itemRepository.findAvailableForSearchAfter(eq(0L), any())).thenReturn(List.of(
+                new ItemSearchView(3L, "дрель", "электрическая дрель"),
+                new ItemSearchView(8L, "чайник", "Электрический чайник"),
+                new ItemSearchView(9L, "кран", "шаровый кран")));
+        when(itemRepository.findAvailableForSearchAfter(eq(9L), any())).thenReturn(List.of());
+
+        itemSearchIndex.rebuild();
+
+        assertThat(itemSearchIndex.isReady(), equalTo(true));
+        assertThat(itemSearchIndex.size(), equalTo(3));
+        assertThat(itemSearchIndex.search("ЭлеКтриЧеск"), contains(3L, 8L));
+        assertThat(itemSearchIndex.search("КРАН"), contains(9L));
+    }
+
+    @Test
+    void verify_ShouldReloadItemsChangedBehindTheIndex() {
+        when(itemRepository.findAvailableForSearchAfter(eq(0L), any())).thenReturn(List.of());
+        itemSearchIndex.rebuild();
+        itemSearchIndex.index(createItem(1L, "дрель", "ударная", true));
+        itemSearchIndex.index(createItem(2L, "кран", "шаровый", true));
+        itemSearchIndex.index(createItem(3L, "чайник", "электрический", true));
+        List<ItemSearchView> stored = List.of(new ItemSearchView(1L, "дрель", "ударная"),
+                new ItemSearchView(2L, "кран", "латунный"),
+                new ItemSearchView(4L, "пила", "цепная"));
+        when(itemRepository.findAvailableForSearchAfter(eq(0L), any())).thenReturn(stored);
+        when(itemRepository.findAvailableForSearchAfter(eq(4L), any())).thenReturn(List.of());
+        when(itemRepository.findAvailableForSearchByIdIn(any())).thenReturn(stored.subList(1, 3));
+
+        assertThat(itemSearchIndex.verify(), equalTo(3));
+        assertThat(itemSearchIndex.verify(), equalTo(0));
+        assertThat(itemSearchIndex.search("латун"), contains(2L));
+        assertThat(itemSearchIndex.search("шаров"), empty());
+        assertThat(itemSearchIndex.search("чайник"), empty());
+        assertThat(itemSearchIndex.search("цепн"), contains(4L));
+        assertThat(itemSearchIndex.suggest("ча", 5), empty());
+    }
+
+    @Test
+    void verify_ShouldKeepItemIndexedWhileReloading() {
+        when(itemRepository.findAvailableForSearchAfter(eq(0L), any())).thenReturn(List.of());
+        itemSearchIndex.rebuild();
+        itemSearchIndex.index(createItem(1L, "дрель", "ударная", true));
+        when(itemRepository.findAvailableForSearchAfter(eq(0L), any())).thenReturn(List.of(
+                new ItemSearchView(1L, "дрель", "аккумуляторная")));
+        when(itemRepository.findAvailableForSearchAfter(eq(1L), any())).thenReturn(List.of());
+        when(itemRepository.findAvailableForSearchByIdIn(any())).thenAnswer(invocation -> {
+            // the item is updated again after the reload read it
+            itemSearchIndex.index(createItem(1L, "дрель", "беспроводная", true));
+            return List.of(new ItemSearchView(1L, "дрель", "аккумуляторная"));
+        });
+
+        assertThat(itemSearchIndex.verify(), equalTo(0));
+        assertThat(itemSearchIndex.search("беспровод"), contains(1L));
+        assertThat(itemSearchIndex.search("аккумулятор"), empty());
+    }
+
+    @Test
+    void search_ShouldMatchSubstringOfNameOrDescription() {
+        itemSearchIndex.index(createItem(1L, "Дрель", "ударная дрель", true));
+        itemSearchIndex.index(createItem(2L, "Дрель", "аккумуляторная", true));
+
+        assertThat(itemSearchIndex.search("дрел"), contains(1L, 2L));
+        assertThat(itemSearchIndex.search("ая др"), contains(1L));
+        assertThat(itemSearchIndex.search("умулят"), contains(2L));
+        assertThat(itemSearchIndex.search("дрель ударн"), empty());
+        assertThat(itemSearchIndex.search("  "), empty());
+    }
+
+    @Test
+    void search_ShouldVerifyTrigramCandidates() {
+        itemSearchIndex.index(createItem(1L, "абвг", "вгд где", true));
+
+        assertThat(itemSearchIndex.search("бвгде"), empty());
+        assertThat(itemSearchIndex.search("д гд"), contains(1L));
+    }
+
+    @Test
+    void search_ShortQueryShouldScanIndexedText() {
+        itemSearchIndex.index(createItem(5L, "кран", "шаровый", true));
+        itemSearchIndex.index(createItem(2L, "сумка", "кожаная", true));
+        itemSearchIndex.index(createItem(9L, "дрель", "ударная", true));
+
+        assertThat(itemSearchIndex.search("ар"), contains(5L, 9L));
+        assertThat(itemSearchIndex.search("к"), contains(2L, 5L));
+    }
+
+    @Test
+    void searchPage_ShouldSeekFromCursorAndStopAtLimit() {
+        for (long id = 1; id <= 8; id++) {
+            itemSearchIndex.index(createItem(id, id % 2 == 0 ? "дрель" : "кран", "ударная", true));
+        }
+
+        assertThat(itemSearchIndex.search("дрель", 0L, 0, 2, id -> true), contains(2L, 4L));
+        assertThat(itemSearchIndex.search("дрель", 4L, 0, 2, id -> true), contains(6L, 8L));
+        assertThat(itemSearchIndex.search("дрель", 5L, 0, 5, id -> true), contains(6L, 8L));
+        assertThat(itemSearchIndex.search("дрель", 0L, 1, 2, id -> id != 4L), contains(6L, 8L));
+        assertThat(itemSearchIndex.search("ар", 3L, 0, 3, id -> true), contains(4L, 5L, 6L));
+        assertThat(itemSearchIndex.search("дрель", 8L, 0, 2, id -> true), empty());
+        assertThat(itemSearchIndex.search("пила", 0L, 0, 2, id -> true), empty());
+    }
+
+    @Test
+    void searchRanked_ShouldOrderByRelevanceAndKeepTopK() {
+        itemSearchIndex.index(createItem(1L, "чехол", "для дрели", true));
+        itemSearchIndex.index(createItem(2L, "дрель", "ударная", true));
+        itemSearchIndex.index(createItem(3L, "дрели набор", "сверла", true));
+        itemSearchIndex.index(createItem(4L, "мини-дрель", "дрель", true));
+        itemSearchIndex.index(createItem(5L, "чехол", "дрель", true));
+        itemSearchIndex.index(createItem(6L, "чехол", "для дрели", true));
+
+        assertThat(itemSearchIndex.searchRanked("дрел", 10, id -> false, id -> true),
+                contains(4L, 2L, 3L, 1L, 5L, 6L));
+        assertThat(itemSearchIndex.searchRanked("дрель", 10, id -> false, id -> true), contains(4L, 2L, 5L));
+        assertThat(itemSearchIndex.searchRanked("дрели", 3, id -> id == 6L, id -> true), contains(3L, 6L, 1L));
+    }
+
+    @Test
+    void searchRankedWithLookup_ShouldAskOnlyAboutMatchesTheBoostCanMove() {
+        itemSearchIndex.index(createItem(1L, "дрели набор", "сверла", true));
+        itemSearchIndex.index(createItem(2L, "дрель", "ударная", true));
+        itemSearchIndex.index(createItem(3L, "чехол", "для дрели", true));
+        List<List<Long>> lookups = new ArrayList<>();
+
+        List<Long> ranked = itemSearchIndex.searchRankedWithLookup("дрел", 1, ids -> {
+            lookups.add(List.copyOf(ids));
+            return id -> id == 2L;
+        }, id -> true);
+
+        assertThat(ranked, contains(2L));
+        assertThat(lookups, hasSize(1));
+        assertThat(lookups.get(0), containsInAnyOrder(1L, 2L));
+    }
+
+    @Test
+    void suggest_ShouldFollowIndexUpdates() {
+        itemSearchIndex.index(createItem(1L, "Дрель", "ударная", true));
+        itemSearchIndex.index(createItem(2L, "дрезина", "ручная", true));
+        itemSearchIndex.index(createItem(3L, "Дрель", "аккумуляторная", true));
+
+        assertThat(itemSearchIndex.suggest("ДР", 10), contains("Дрель", "дрезина"));
+
+        itemSearchIndex.index(createItem(2L, "дрезина", "ручная", false));
+        itemSearchIndex.remove(3L);
+        itemSearchIndex.index(createItem(1L, "кран", "шаровый", true));
+
+        assertThat(itemSearchIndex.suggest("др", 10), empty());
+        assertThat(itemSearchIndex.suggest("к", 10), contains("кран"));
+    }
+
+    @Test
+    void index_ShouldReplacePreviousVersionOfItem() {
+        itemSearchIndex.index(createItem(1L, "дрель", "ударная", true));
+        itemSearchIndex.index(createItem(1L, "перфоратор", "ударный", true));
+
+        assertThat(itemSearchIndex.search("дрель"), empty());
+        assertThat(itemSearchIndex.search("перфоратор"), contains(1L));
+        assertThat(itemSearchIndex.size(), equalTo(1));
+    }
+
+    @Test
+    void index_UnavailableItemShouldBeRemoved() {
+        itemSearchIndex.index(createItem(1L, "дрель", "ударная", true));
+        itemSearchIndex.index(createItem(1L, "дрель", "ударная", false));
+
+        assertThat(itemSearchIndex.search("дрель"), empty());
+        assertThat(itemSearchIndex.size(), equalTo(0));
+    }
+
+    @Test
+    void remove_ShouldDropItemFromResults() {
+        itemSearchIndex.index(createItem(1L, "дрель", "ударная", true));
+        itemSearchIndex.index(createItem(2L, "дрель", "аккумуляторная", true));
+
+        itemSearchIndex.remove(1L);
+
+        assertThat(itemSearchIndex.search("дрель"), contains(2L));
+    }
+
+    private Item createItem(Long id, String name, String description, boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+class NameTrieTest {
+
+    @Test
+    void complete_ShouldReturnMostFrequentNamesFirst() {
+        NameTrie trie = new NameTrie();
+        trie.add("дрель", "Дрель");
+        trie.add("дрель", "дрель");
+        trie.add("дрель ударная", "дрель ударная");
+        trie.add("дрезина", "дрезина");
+        trie.add("кран", "кран");
+
+        assertThat(trie.complete("др", 10), contains("дрель", "дрезина", "дрель ударная"));
+        assertThat(trie.complete("дрель у", 10), contains("дрель ударная"));
+        assertThat(trie.complete("др", 1), contains("дрель"));
+        assertThat(trie.complete("дрек", 10), empty());
+        assertThat(trie.complete("", 10), contains("дрель", "дрезина", "дрель ударная", "кран"));
+    }
+
+    @Test
+    void remove_ShouldCompactNodes() {
+        NameTrie trie = new NameTrie();
+        trie.add("дрель", "дрель");
+        int single = trie.nodes();
+        trie.add("дрезина", "дрезина");
+        trie.add("дрель ударная", "дрель ударная");
+
+        trie.remove("дрезина");
+        trie.remove("дрель ударная");
+        trie.remove("дрель ударная");
+
+        assertThat(trie.nodes(), equalTo(single));
+        assertThat(trie.complete("д", 10), contains("дрель"));
+        trie.remove("дрель");
+        assertThat(trie.complete("", 10), empty());
+        assertThat(trie.nodes(), equalTo(1));
+    }
+
+    @Test
+    void complete_ShouldMatchBruteForceAfterRandomUpdates() {
+        String[] names = {"дрель", "дрели", "дрель ударная", "дрезина", "др", "кран", "кран шаровый", "краска",
+                "кр", "к", "сумка", "сумка кожаная", "сумки"};
+        NameTrie trie = new NameTrie();
+        Map<String, Integer> counts = new TreeMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            String name = names[random.nextInt(names.length)];
+            if (random.nextInt(3) == 0 && counts.getOrDefault(name, 0) > 0) {
+                trie.remove(name);
+                counts.merge(name, -1, Integer::sum);
+            } else {
+                trie.add(name, name);
+                counts.merge(name, 1, Integer::sum);
+            }
+            for (String prefix : List.of("", "к", "кр", "др", "дрел", "сумк", "x")) {
+                assertThat(trie.complete(prefix, 3), equalTo(bruteForce(counts, prefix, 3)));
+            }
+        }
+    }
+
+    private List<String> bruteForce(Map<String, Integer> counts, String prefix, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 0 && entry.getKey().startsWith(prefix)) {
+                entries.add(entry);
+            }
+        }
+        return entries.stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Integer> entry) -> -entry.getValue())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
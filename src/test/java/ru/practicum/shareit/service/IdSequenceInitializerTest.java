@@ -0,0 +1,58 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * A database filled before the sequences existed: the rows carry ids from identity columns while the
+ * sequences still start at 1.
+ */
+class IdSequenceInitializerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void start_ShouldMoveSequencesPastExistingIds() {
+        String url = "jdbc:h2:file:" + directory.resolve("shareit").toAbsolutePath();
+        try (ConfigurableApplicationContext legacy = start(url)) {
+            JdbcTemplate jdbcTemplate = legacy.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("insert into users (id, name, email) values (2, 'first', 'first@shareit.ru')");
+            jdbcTemplate.update("insert into users (id, name, email) values (120, 'second', 'second@shareit.ru')");
+            jdbcTemplate.execute("alter sequence users_seq restart with 1");
+        }
+
+        try (ConfigurableApplicationContext context = start(url)) {
+            User user = context.getBean(UserRepository.class).save(User.builder()
+                    .name("third")
+                    .email("third@shareit.ru")
+                    .build());
+
+            assertThat(user.getId(), greaterThan(120L));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + url,
+                        "spring.datasource.driverClassName=org.h2.Driver",
+                        "spring.datasource.username=test",
+                        "spring.datasource.password=test",
+                        "spring.sql.init.mode=always",
+                        "spring.jmx.enabled=false")
+                .run();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.request.ItemRequestService;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap allocated per request by the user lookups of a user owning a large catalog.
+ * Run with {@code mvn test -Dtest=UserLookupBenchmark -Dbenchmark=true}.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserLookupBenchmark {
+
+    private static final int ITEMS = 2_000;
+    private static final int BOOKINGS_PER_ITEM = 5;
+    private static final int COMMENTS_PER_ITEM = 2;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Test
+    void measureAllocatedBytesPerRequest() {
+        Long ownerId = insertUser("owner");
+        Long bookerId = insertUser("booker");
+        insertCatalog(ownerId, bookerId);
+
+        log.info("users/{id}: {} KB per request", allocatedKilobytes(() -> userService.getUserDto(ownerId)));
+        log.info("users update: {} KB per request",
+                allocatedKilobytes(() -> userService.updateUser(ownerId, Map.of("name", "owner"))));
+        log.info("requests: {} KB per request", allocatedKilobytes(() -> itemRequestService.getRequests(ownerId)));
+        log.info("bookings/owner: {} KB per request", allocatedKilobytes(() ->
+                bookingService.getBookingByStateAndOwner(ownerId, "FUTURE", PageRequest.of(0, 10), null)));
+
+        jdbcTemplate.update("delete from comments where author_id = ?", ownerId);
+        jdbcTemplate.update("delete from bookings where booker_id = ?", bookerId);
+        jdbcTemplate.update("delete from items where owner_id = ?", ownerId);
+        jdbcTemplate.update("delete from users where id in (?, ?)", ownerId, bookerId);
+    }
+
+    private Long insertUser(String name) {
+        jdbcTemplate.update("insert into users (id, name, email) values (next value for users_seq, ?, ?)", name,
+                name + "@bench.ru");
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, name + "@bench.ru");
+    }
+
+    private void insertCatalog(Long ownerId, Long bookerId) {
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Object[]{"item " + i, "description " + i, ownerId});
+        }
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner_id) "
+                + "values (next value for items_seq, ?, ?, true, ?)", items);
+        List<Long> itemIds = jdbcTemplate.queryForList("select id from items where owner_id = ?", Long.class,
+                ownerId);
+        Timestamp past = Timestamp.valueOf(LocalDateTime.now().minusMonths(1));
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                bookings.add(new Object[]{past, past, itemId, bookerId, ownerId});
+            }
+            for (int i = 0; i < COMMENTS_PER_ITEM; i++) {
+                comments.add(new Object[]{"comment " + i, itemId, ownerId, past});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (id, start_date, end_date, item_id, booker_id, owner_id, status) "
+                + "values (next value for bookings_seq, ?, ?, ?, ?, ?, 'APPROVED')", bookings);
+        jdbcTemplate.batchUpdate("insert into comments (id, text, item_id, author_id, created_date) "
+                + "values (next value for comments_seq, ?, ?, ?, ?)", comments);
+    }
+
+    private long allocatedKilobytes(Runnable request) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        request.run();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS / 1024;
+    }
+}
@@ -12,7 +12,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchView;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserView;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
@@ -24,6 +29,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -37,8 +44,18 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private ItemSearchCache itemSearchCache;
+
     @InjectMocks
-    private UserService userService = new UserService(userRepository, userMapper);
+    private UserService userService = new UserService(userRepository, userMapper, itemRepository, itemSearchIndex,
+            itemSearchCache);
 
     @Test
     void create_ShouldReturnSameEntity() {
@@ -77,13 +94,11 @@ class UserServiceTest {
         ReflectionTestUtils.setField(userService, "userRepository", userRepository);
         ReflectionTestUtils.setField(userService, "userMapper", userMapper);
 
-        User user = createUser();
-        Optional<User> optionalUser = Optional.of(user);
+        UserView userView = mock(UserView.class);
         UserDto userDto = createUserDto();
 
-        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
-        when(userMapper.usertoUserDto(user)).thenReturn(userDto);
-        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findViewById(anyLong())).thenReturn(Optional.of(userView));
+        when(userMapper.userViewToUserDto(userView)).thenReturn(userDto);
 
         UserDto expectedUserDto = userService.getUserDto(1L);
 
@@ -138,6 +153,25 @@ class UserServiceTest {
         assertThat(notFoundException.getMessage(), equalTo("Пользователь не найден в системе"));
     }
 
+    @Test
+    void delete_ShouldRemoveOwnerItemsFromSearch() {
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(userService, "itemSearchIndex", itemSearchIndex);
+        ReflectionTestUtils.setField(userService, "itemSearchCache", itemSearchCache);
+        User user = createUser();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(itemRepository.findSearchViewsByOwnerId(1L)).thenReturn(
+                List.of(new ItemSearchView(5L, "Дрель", "ударная")));
+
+        userService.deleteUser(1L);
+
+        verify(userRepository).delete(user);
+        verify(itemSearchIndex).remove(5L);
+        verify(itemSearchCache).invalidate("Дрель", "ударная", null, null);
+    }
+
     @Test
     void update_StandardBehavior_ChangeName() {
 
@@ -1,47 +1,56 @@
+alter sequence users_seq restart with 1000;
+alter sequence items_seq restart with 1000;
+alter sequence bookings_seq restart with 1000;
+alter sequence requests_seq restart with 1000;
+alter sequence comments_seq restart with 1000;
+
 insert into users
-    (name, email)
-values ('Maikoo', 'Maikoo@nmicrk.ru'),
-       ('Heikoo', 'Heikoo@nmicrk.ru'),
-       ('Kirill', 'Kirill@nmicrk.ru'),
-       ('Mariya', 'Mariya@nmicrk.ru'),
-       ('Daniel', 'Daniel@nmicrk.ru'),
-       ('Victoria', 'Victoria@nmicrk.ru');
+    (id, name, email)
+values (1, 'Maikoo', 'Maikoo@nmicrk.ru'),
+       (2, 'Heikoo', 'Heikoo@nmicrk.ru'),
+       (3, 'Kirill', 'Kirill@nmicrk.ru'),
+       (4, 'Mariya', 'Mariya@nmicrk.ru'),
+       (5, 'Daniel', 'Daniel@nmicrk.ru'),
+       (6, 'Victoria', 'Victoria@nmicrk.ru');
 
 insert into items
-    (name, description, is_available, owner_id)
-values ('сумка', 'кожанная сумка', TRUE, 5),
-       ('пистолет', 'травматическое оружие', TRUE, 4),
-       ('дрель', 'электрическая дрель', TRUE, 1),
-       ('поводок', 'для малых пород собак', TRUE, 3),
-       ('велосипед', 'трехколесный детский', TRUE, 3),
-       ('очиститель воздуха', 'бытовой', TRUE, 2),
-       ('игрушечная машинка', 'на пульте управления', TRUE, 1),
-       ('чайник', 'электрический чайник', TRUE, 1),
-       ('кран', 'шаровый кран', TRUE, 1),
-       ('газонокосилка', 'бензиновая', TRUE, 6);
+    (id, name, description, is_available, owner_id)
+values (1, 'сумка', 'кожанная сумка', TRUE, 5),
+       (2, 'пистолет', 'травматическое оружие', TRUE, 4),
+       (3, 'дрель', 'электрическая дрель', TRUE, 1),
+       (4, 'поводок', 'для малых пород собак', TRUE, 3),
+       (5, 'велосипед', 'трехколесный детский', TRUE, 3),
+       (6, 'очиститель воздуха', 'бытовой', TRUE, 2),
+       (7, 'игрушечная машинка', 'на пульте управления', TRUE, 1),
+       (8, 'чайник', 'электрический чайник', TRUE, 1),
+       (9, 'кран', 'шаровый кран', TRUE, 1),
+       (10, 'газонокосилка', 'бензиновая', TRUE, 6);
 
 insert into bookings
-    (start_date, end_date, item_id, booker_id, status)
-values ('2023-03-05 12:00:00.00', '2023-10-05 12:00:00.00', 1, 3, 'WAITING'),
-       ('2023-11-05 12:00:00.00', '2023-12-05 12:00:00.00', 1, 3, 'WAITING'),
-       ('2023-09-05 12:00:00.00', '2023-09-25 12:00:00.00', 5, 2, 'WAITING'),
-       ('2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 5, 2, 'REJECTED'),
-       ('2023-04-05 12:00:00.00', '2023-05-05 12:00:00.00', 2, 1, 'APPROVED'),
-       ('2023-06-05 12:00:00.00', '2023-07-05 12:00:00.00', 2, 6, 'APPROVED'),
-       ('2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 9, 2, 'APPROVED'),
-       ('2023-08-05 12:00:00.00', '2023-09-05 12:00:00.00', 2, 3, 'WAITING'),
-       ('2023-09-05 12:00:00.00', '2023-09-15 12:00:00.00', 9, 5, 'WAITING'),
-       ('2023-10-05 12:00:00.00', '2023-10-25 12:00:00.00', 7, 5, 'WAITING'),
-       ('2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 7, 6, 'APPROVED'),
-       ('2023-09-05 12:00:00.00', '2023-11-05 12:00:00.00', 6, 1, 'WAITING'),
-       ('2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 4, 5, 'CANCELED');
+    (id, start_date, end_date, item_id, booker_id, status)
+values (1, '2023-03-05 12:00:00.00', '2023-10-05 12:00:00.00', 1, 3, 'WAITING'),
+       (2, '2023-11-05 12:00:00.00', '2023-12-05 12:00:00.00', 1, 3, 'WAITING'),
+       (3, '2023-09-05 12:00:00.00', '2023-09-25 12:00:00.00', 5, 2, 'WAITING'),
+       (4, '2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 5, 2, 'REJECTED'),
+       (5, '2023-04-05 12:00:00.00', '2023-05-05 12:00:00.00', 2, 1, 'APPROVED'),
+       (6, '2023-06-05 12:00:00.00', '2023-07-05 12:00:00.00', 2, 6, 'APPROVED'),
+       (7, '2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 9, 2, 'APPROVED'),
+       (8, '2023-08-05 12:00:00.00', '2023-09-05 12:00:00.00', 2, 3, 'WAITING'),
+       (9, '2023-09-05 12:00:00.00', '2023-09-15 12:00:00.00', 9, 5, 'WAITING'),
+       (10, '2023-10-05 12:00:00.00', '2023-10-25 12:00:00.00', 7, 5, 'WAITING'),
+       (11, '2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 7, 6, 'APPROVED'),
+       (12, '2023-09-05 12:00:00.00', '2023-11-05 12:00:00.00', 6, 1, 'WAITING'),
+       (13, '2023-07-05 12:00:00.00', '2023-08-05 12:00:00.00', 4, 5, 'CANCELED');
 
 insert into requests
-    (description, requester_id, created_date)
-values ('нужен спальный мешок', 6, '2023-10-25 14:30:00.00');
+    (id, description, requester_id, created_date)
+values (1, 'нужен спальный мешок', 6, '2023-10-25 14:30:00.00');
 
 insert into comments
-    (text, item_id, author_id, created_date)
-values ('работает исправно', 2, 1, '2023-08-05 12:00:00.00'),
-       ('качественная очистка', 9, 2, '2023-08-05 12:00:00.00'),
-       ('удобный бак для травы', 7, 6, '2023-08-05 12:00:00.00');
+    (id, text, item_id, author_id, created_date)
+values (1, 'работает исправно', 2, 1, '2023-08-05 12:00:00.00'),
+       (2, 'качественная очистка', 9, 2, '2023-08-05 12:00:00.00'),
+       (3, 'удобный бак для травы', 7, 6, '2023-08-05 12:00:00.00');
+
+update bookings
+set owner_id = (select i.owner_id from items i where i.id = bookings.item_id);